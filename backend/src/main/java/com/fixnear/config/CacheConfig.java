@@ -0,0 +1,33 @@
+package com.fixnear.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Read-through caches in front of the user and provider lookups. Size bound, TTL and stats
+ * recording come from spring.cache.caffeine.spec; the caches are created up front so the
+ * actuator binds their cache.gets / cache.evictions meters at startup.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PROVIDERS = "providers";
+    public static final String PROVIDERS_BY_USER = "providersByUser";
+    public static final String USERS = "users";
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> cacheNamesCustomizer() {
+        return cacheManager -> {
+            // Missing entries are cached too, so services evict the keys a create makes visible
+            cacheManager.setAllowNullValues(true);
+            cacheManager.setCacheNames(List.of(PROVIDERS, PROVIDERS_BY_USER, USERS, USERS_BY_EMAIL));
+        };
+    }
+}
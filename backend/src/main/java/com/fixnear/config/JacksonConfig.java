@@ -0,0 +1,17 @@
+package com.fixnear.config;
+
+import com.fasterxml.jackson.databind.Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.geo.GeoJsonModule;
+
+@Configuration
+public class JacksonConfig {
+
+    // Spring Data only registers the GeoJSON deserializers; without these, points are
+    // written with their x/y getters instead of as { "type": "Point", "coordinates": [...] }
+    @Bean
+    public Module geoJsonSerializers() {
+        return GeoJsonModule.serializers();
+    }
+}
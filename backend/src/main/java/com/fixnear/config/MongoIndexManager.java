@@ -0,0 +1,187 @@
+package com.fixnear.config;
+
+import com.fixnear.model.Booking;
+import com.fixnear.model.BookingEvent;
+import com.fixnear.model.Provider;
+import com.fixnear.model.SlotClaim;
+import com.fixnear.model.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes behind the repository query patterns when the application starts,
+ * then checks that every one of them is present. Missing indexes are logged, or abort
+ * startup when fixnear.mongo.indexes.fail-fast is set.
+ */
+@Component
+public class MongoIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean failFast;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate,
+                             @Value("${fixnear.mongo.indexes.fail-fast:false}") boolean failFast) {
+        this.mongoTemplate = mongoTemplate;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Indexes required per entity. Booking lookups by user or provider also sort by _id for
+     * keyset pages; the provider/status/date index serves per-provider schedules and filters.
+     */
+    public Map<Class<?>, List<IndexDefinition>> requiredIndexes() {
+        Map<Class<?>, List<IndexDefinition>> indexes = new LinkedHashMap<>();
+        indexes.put(Booking.class, List.of(
+                new Index().on("userId", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                        .named("userId_id"),
+                new Index().on("providerId", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                        .named("providerId_id"),
+                new Index().on("providerId", Sort.Direction.ASC).on("status", Sort.Direction.ASC)
+                        .on("bookingDate", Sort.Direction.ASC).named("providerId_status_bookingDate"),
+                new Index().on("status", Sort.Direction.ASC).named("status"),
+                new Index().on("bookingDate", Sort.Direction.ASC).named("bookingDate")
+        ));
+        indexes.put(User.class, List.of(
+                new Index().on("email", Sort.Direction.ASC).unique().named("email_unique")
+        ));
+        indexes.put(Provider.class, List.of(
+                new Index().on("userId", Sort.Direction.ASC).named("userId"),
+                new Index().on("available", Sort.Direction.ASC).named("available"),
+                new Index().on("serviceKey", Sort.Direction.ASC).on("locationKey", Sort.Direction.ASC)
+                        .named("serviceKey_locationKey"),
+                new Index().on("locationKey", Sort.Direction.ASC).named("locationKey"),
+                new GeospatialIndex("coordinates").typed(GeoSpatialIndexType.GEO_2DSPHERE)
+                        .named("coordinates_2dsphere")
+        ));
+        // Claims are exclusive through their _id; these serve release by booking and expiry
+        indexes.put(SlotClaim.class, List.of(
+                new Index().on("bookingId", Sort.Direction.ASC).named("bookingId"),
+                new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO).named("expiresAt_ttl")
+        ));
+        // Only read through the change stream, so events just need to age out
+        indexes.put(BookingEvent.class, List.of(
+                new Index().on("createdAt", Sort.Direction.ASC).expire(Duration.ofMinutes(10)).named("createdAt_ttl")
+        ));
+        return indexes;
+    }
+
+    // Runs before ApplicationReadyEvent so the search index and stats warmups hit indexed collections
+    @EventListener(ApplicationStartedEvent.class)
+    public void provisionIndexes() {
+        try {
+            mongoTemplate.executeCommand(new Document("ping", 1));
+        } catch (Exception e) {
+            handleMissing("MongoDB is unreachable, indexes were not checked: " + e.getMessage());
+            return;
+        }
+
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<Class<?>, List<IndexDefinition>> entry : requiredIndexes().entrySet()) {
+            String collection = mongoTemplate.getCollectionName(entry.getKey());
+            for (IndexDefinition index : entry.getValue()) {
+                try {
+                    mongoTemplate.indexOps(collection).createIndex(index);
+                } catch (Exception e) {
+                    // Typically duplicate emails blocking the unique index, or an equivalent
+                    // index that already exists under another name
+                    log.warn("Could not create index {} on {}: {}", index.getIndexKeys(), collection, e.getMessage());
+                }
+            }
+            missing.addAll(missingIndexes(collection, entry.getValue()));
+        }
+
+        if (missing.isEmpty()) {
+            log.info("All required MongoDB indexes are present");
+        } else {
+            handleMissing("Missing required MongoDB indexes: " + missing);
+        }
+    }
+
+    /**
+     * Per collection, the usage counters reported by $indexStats: how many operations used
+     * each index since the counter was last reset (server restart or index rebuild).
+     */
+    public Map<String, List<Map<String, Object>>> indexUsage() {
+        Map<String, List<Map<String, Object>>> usage = new LinkedHashMap<>();
+        for (Class<?> type : requiredIndexes().keySet()) {
+            String collection = mongoTemplate.getCollectionName(type);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Document stats : mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))) {
+                Document accesses = stats.get("accesses", Document.class);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("name", stats.getString("name"));
+                row.put("key", stats.get("key"));
+                row.put("ops", accesses == null ? 0L : ((Number) accesses.get("ops")).longValue());
+                row.put("since", accesses == null ? null : accesses.get("since"));
+                rows.add(row);
+            }
+            usage.put(collection, rows);
+        }
+        return usage;
+    }
+
+    private List<String> missingIndexes(String collection, List<IndexDefinition> required) {
+        List<Document> existing = new ArrayList<>();
+        for (Document index : mongoTemplate.getCollection(collection).listIndexes()) {
+            existing.add(index);
+        }
+        List<String> missing = new ArrayList<>();
+        for (IndexDefinition index : required) {
+            boolean present = existing.stream().anyMatch(e -> sameKeys(e.get("key", Document.class), index.getIndexKeys()));
+            if (!present) {
+                missing.add(collection + " " + index.getIndexKeys().toJson());
+            }
+        }
+        return missing;
+    }
+
+    // Key order matters for compound indexes; the server may report 1 as 1.0
+    private static boolean sameKeys(Document actual, Document expected) {
+        if (actual == null || actual.size() != expected.size()) {
+            return false;
+        }
+        List<String> actualFields = new ArrayList<>(actual.keySet());
+        List<String> expectedFields = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < expectedFields.size(); i++) {
+            String field = expectedFields.get(i);
+            if (!field.equals(actualFields.get(i)) || !sameDirection(actual.get(field), expected.get(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameDirection(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number b) {
+            return a.intValue() == b.intValue();
+        }
+        return String.valueOf(actual).equals(String.valueOf(expected));
+    }
+
+    private void handleMissing(String message) {
+        if (failFast) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+}
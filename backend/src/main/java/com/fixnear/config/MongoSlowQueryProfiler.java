@@ -0,0 +1,376 @@
+package com.fixnear.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver command listener that keeps the most recent operations slower than
+ * fixnear.mongo.slow-queries.threshold-ms in a ring buffer, with the shape of their filter
+ * (literal values replaced by "?") and how many documents they returned. The first slow
+ * occurrence of each shape, and again once per explain interval, is re-run in the
+ * background as explain("executionStats") to capture documents and keys examined and the
+ * winning plan, which is what tells a collection scan from an index miss.
+ */
+@Component
+public class MongoSlowQueryProfiler implements CommandListener, MongoClientSettingsBuilderCustomizer {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoSlowQueryProfiler.class);
+
+    // Commands that carry a filter or pipeline worth explaining; inserts and getMore do not
+    private static final Set<String> PROFILED = Set.of(
+            "find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+    // Session and cluster bookkeeping the driver adds to every command
+    private static final Set<String> DRIVER_FIELDS = Set.of("lsid", "txnNumber", "autocommit", "startTransaction");
+    private static final int MAX_EXPLAINS = 200;
+
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long thresholdMs;
+    private final boolean explain;
+    private final long explainIntervalMs;
+
+    private final Map<Integer, Started> inFlight = new ConcurrentHashMap<>();
+    private final SlowQuery[] ring;
+    private int next;
+    private long recorded;
+    private final Map<String, Explain> explains = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Explain> eldest) {
+            return size() > MAX_EXPLAINS;
+        }
+    };
+    private final Map<String, Long> lastExplainAt = new ConcurrentHashMap<>();
+    // Explains never run on a driver thread; a full queue just skips the sample
+    private final ThreadPoolExecutor explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), runnable -> {
+                Thread thread = new Thread(runnable, "mongo-explain");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public MongoSlowQueryProfiler(ObjectProvider<MongoTemplate> mongoTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${fixnear.mongo.slow-queries.threshold-ms:100}") long thresholdMs,
+                                  @Value("${fixnear.mongo.slow-queries.capacity:200}") int capacity,
+                                  @Value("${fixnear.mongo.slow-queries.explain:true}") boolean explain,
+                                  @Value("${fixnear.mongo.slow-queries.explain-interval-ms:300000}") long explainIntervalMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.thresholdMs = thresholdMs;
+        this.explain = explain;
+        this.explainIntervalMs = explainIntervalMs;
+        this.ring = new SlowQuery[Math.max(1, capacity)];
+    }
+
+    @Override
+    public void customize(MongoClientSettings.Builder builder) {
+        if (thresholdMs > 0) {
+            builder.addCommandListener(this);
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (PROFILED.contains(event.getCommandName())) {
+            // The event's document is only valid during this call, so keep a trimmed copy
+            inFlight.put(event.getRequestId(), new Started(event.getDatabaseName(), slim(event.getCommand())));
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        long durationMs = event.getElapsedTime(TimeUnit.MILLISECONDS);
+        if (durationMs < thresholdMs) {
+            return;
+        }
+        String command = event.getCommandName();
+        String collection = started.command.get(command).isString()
+                ? started.command.getString(command).getValue() : null;
+        String shape = shape(started.command).toJson();
+        record(new SlowQuery(new Date(), started.database, collection, command, shape, durationMs,
+                returned(event.getResponse()), null));
+        meterRegistry.counter("fixnear.mongo.slow.queries",
+                "collection", String.valueOf(collection), "command", command).increment();
+        if (explain) {
+            sampleExplain(started, collection + " " + shape);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+
+    // Most recent first, each joined with the latest explain sample of its shape
+    public List<SlowQuery> recent() {
+        List<SlowQuery> result = new ArrayList<>();
+        synchronized (ring) {
+            int count = (int) Math.min(recorded, ring.length);
+            for (int i = 1; i <= count; i++) {
+                SlowQuery query = ring[Math.floorMod(next - i, ring.length)];
+                Explain sample;
+                synchronized (explains) {
+                    sample = explains.get(query.collection() + " " + query.shape());
+                }
+                result.add(sample == null ? query : query.withExplain(sample));
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainer.shutdownNow();
+    }
+
+    private void record(SlowQuery query) {
+        synchronized (ring) {
+            ring[next] = query;
+            next = (next + 1) % ring.length;
+            recorded++;
+        }
+    }
+
+    private void sampleExplain(Started started, String key) {
+        long now = System.currentTimeMillis();
+        Long last = lastExplainAt.get(key);
+        if (last != null && now - last < explainIntervalMs) {
+            return;
+        }
+        lastExplainAt.put(key, now);
+        if (lastExplainAt.size() > MAX_EXPLAINS * 5) {
+            lastExplainAt.clear();
+        }
+        try {
+            explainer.execute(() -> runExplain(started, key));
+        } catch (RejectedExecutionException e) {
+            lastExplainAt.remove(key);
+        }
+    }
+
+    private void runExplain(Started started, String key) {
+        try {
+            BsonDocument command = started.command.clone();
+            if (command.containsKey("aggregate") && !command.containsKey("cursor")) {
+                command.put("cursor", new BsonDocument());
+            }
+            Document result = mongoTemplate.getObject().getMongoDatabaseFactory()
+                    .getMongoDatabase(started.database)
+                    .runCommand(new BsonDocument("explain", command).append("verbosity", new BsonString("executionStats")));
+            Explain sample = Explain.of(result);
+            synchronized (explains) {
+                explains.put(key, sample);
+            }
+        } catch (Exception e) {
+            log.debug("Explain of slow {} failed: {}", key, e.getMessage());
+        }
+    }
+
+    // The command without driver bookkeeping; bulk writes keep only their first statement
+    private static BsonDocument slim(BsonDocument command) {
+        BsonDocument slim = new BsonDocument();
+        for (Map.Entry<String, BsonValue> field : command.entrySet()) {
+            String name = field.getKey();
+            if (name.startsWith("$") || DRIVER_FIELDS.contains(name)) {
+                continue;
+            }
+            BsonValue value = field.getValue();
+            if ((name.equals("updates") || name.equals("deletes")) && value.isArray() && !value.asArray().isEmpty()) {
+                value = new BsonArray(List.of(value.asArray().get(0)));
+            }
+            slim.put(name, value.isDocument() || value.isArray() ? clone(value) : value);
+        }
+        return slim;
+    }
+
+    private static BsonValue clone(BsonValue value) {
+        return value.isDocument() ? value.asDocument().clone() : value.asArray().clone();
+    }
+
+    // Only the parts that select documents, with literals replaced
+    private static BsonDocument shape(BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        for (String field : List.of("filter", "query", "pipeline", "sort", "key")) {
+            if (command.containsKey(field)) {
+                shape.put(field, field.equals("key") ? command.get(field) : mask(command.get(field)));
+            }
+        }
+        for (String field : List.of("updates", "deletes")) {
+            if (command.containsKey(field) && !command.getArray(field).isEmpty()) {
+                BsonValue statement = command.getArray(field).get(0);
+                if (statement.isDocument() && statement.asDocument().containsKey("q")) {
+                    shape.put("q", mask(statement.asDocument().get("q")));
+                }
+            }
+        }
+        return shape;
+    }
+
+    private static BsonValue mask(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument masked = new BsonDocument();
+            for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+                masked.put(field.getKey(), mask(field.getValue()));
+            }
+            return masked;
+        }
+        if (value.isArray()) {
+            // Pipelines and $and/$or lists keep their structure; $in lists collapse
+            BsonArray array = value.asArray();
+            boolean structured = !array.isEmpty() && array.get(0).isDocument();
+            if (!structured) {
+                return new BsonString("?");
+            }
+            BsonArray masked = new BsonArray();
+            array.forEach(element -> masked.add(mask(element)));
+            return masked;
+        }
+        if (value.isString() && value.asString().getValue().startsWith("$")) {
+            return value; // field path, not a literal
+        }
+        if (value.isNumber() && (value.asNumber().intValue() == 1 || value.asNumber().intValue() == -1)) {
+            return value; // sort directions and projections
+        }
+        return new BsonString("?");
+    }
+
+    private static Integer returned(BsonDocument response) {
+        if (response == null) {
+            return null;
+        }
+        if (response.isDocument("cursor")) {
+            BsonDocument cursor = response.getDocument("cursor");
+            return cursor.isArray("firstBatch") ? cursor.getArray("firstBatch").size() : null;
+        }
+        if (response.isNumber("n")) {
+            return response.getNumber("n").intValue();
+        }
+        if (response.isArray("values")) {
+            return response.getArray("values").size();
+        }
+        if (response.containsKey("value")) {
+            return response.isNull("value") ? 0 : 1; // findAndModify
+        }
+        return null;
+    }
+
+    private record Started(String database, BsonDocument command) {
+    }
+
+    public record SlowQuery(Date at, String database, String collection, String command, String shape,
+                            long durationMs, Integer returned, Explain explain) {
+        SlowQuery withExplain(Explain sample) {
+            return new SlowQuery(at, database, collection, command, shape, durationMs, returned, sample);
+        }
+    }
+
+    /**
+     * Summary of one explain("executionStats") run: the winning plan as its stages from the
+     * top (e.g. "FETCH > IXSCAN providerId_status_bookingDate"), whether any stage scans the
+     * whole collection, and the work done against what came back.
+     */
+    public record Explain(Date at, String plan, boolean collectionScan, Long docsExamined,
+                          Long keysExamined, Long returned, Long executionMs) {
+
+        static Explain of(Document result) {
+            Document planner = find(result, "queryPlanner");
+            Document stats = find(result, "executionStats");
+            String plan = null;
+            if (planner != null) {
+                Object winning = planner.get("winningPlan");
+                if (winning instanceof Document winningPlan) {
+                    // Slot-based engine nests the classic plan under queryPlan
+                    plan = describe(winningPlan.get("queryPlan") instanceof Document queryPlan ? queryPlan : winningPlan);
+                }
+            }
+            return new Explain(new Date(), plan, plan != null && plan.contains("COLLSCAN"),
+                    number(stats, "totalDocsExamined"), number(stats, "totalKeysExamined"),
+                    number(stats, "nReturned"), number(stats, "executionTimeMillis"));
+        }
+
+        private static String describe(Document stage) {
+            StringBuilder plan = new StringBuilder();
+            Document current = stage;
+            while (current != null) {
+                if (plan.length() > 0) {
+                    plan.append(" > ");
+                }
+                plan.append(current.getString("stage"));
+                if (current.get("indexName") instanceof String indexName) {
+                    plan.append(' ').append(indexName);
+                }
+                if (current.get("inputStage") instanceof Document input) {
+                    current = input;
+                } else if (current.get("inputStages") instanceof List<?> inputs && !inputs.isEmpty()
+                        && inputs.get(0) instanceof Document first) {
+                    current = first;
+                } else {
+                    current = null;
+                }
+            }
+            return plan.toString();
+        }
+
+        // Aggregations report the planner inside their first stage ($cursor) or per shard
+        private static Document find(Document document, String key) {
+            if (document.get(key) instanceof Document found) {
+                return found;
+            }
+            for (Object value : document.values()) {
+                if (value instanceof Document nested) {
+                    Document found = find(nested, key);
+                    if (found != null) {
+                        return found;
+                    }
+                } else if (value instanceof List<?> list) {
+                    for (Object element : list) {
+                        if (element instanceof Document nested) {
+                            Document found = find(nested, key);
+                            if (found != null) {
+                                return found;
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static Long number(Document document, String key) {
+            return document != null && document.get(key) instanceof Number n ? n.longValue() : null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.fixnear.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Metric conventions shared by everything exported on /actuator/prometheus. Spring Boot
+ * already times each request (http.server.requests), each repository method
+ * (spring.data.repository.invocations) and each Mongo command (mongodb.driver.commands);
+ * JwtUtil and PasswordHasher time the auth steps under fixnear.*. Histograms and
+ * percentiles are switched on per meter in application.properties.
+ */
+@Configuration
+public class ObservabilityConfig {
+
+    private static final String CONTROLLER = "controller";
+
+    // Adds the handling controller (BookingController, AuthController, ...) to the
+    // per-endpoint timers; bounded by the number of controllers, unlike raw paths
+    @Bean
+    public DefaultServerRequestObservationConvention serverRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(controller(context));
+            }
+        };
+    }
+
+    private static KeyValue controller(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return KeyValue.of(CONTROLLER, method.getBeanType().getSimpleName());
+        }
+        return KeyValue.of(CONTROLLER, "none");
+    }
+}
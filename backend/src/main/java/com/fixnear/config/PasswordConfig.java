@@ -1,15 +1,20 @@
 package com.fixnear.config;
 
+import com.fixnear.security.AdaptiveBCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class PasswordConfig {
 
+    // BCrypt cost chosen at startup to fit the latency budget, never below the library default of 10
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${fixnear.hashing.target-ms:250}") long targetMs,
+            @Value("${fixnear.hashing.min-cost:10}") int minCost,
+            @Value("${fixnear.hashing.max-cost:14}") int maxCost) {
+        return new AdaptiveBCryptPasswordEncoder(targetMs, minCost, maxCost);
     }
 }
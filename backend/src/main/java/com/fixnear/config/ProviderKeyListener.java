@@ -0,0 +1,94 @@
+package com.fixnear.config;
+
+import com.fixnear.model.Provider;
+import com.fixnear.service.ProviderSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps Provider.serviceKey/locationKey in step with service/location on every save, and
+ * backfills them at startup for documents written without them (e.g. insert_data.js).
+ */
+@Component
+public class ProviderKeyListener extends AbstractMongoEventListener<Provider> {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderKeyListener.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProviderKeyListener(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Provider> event) {
+        Provider provider = event.getSource();
+        provider.setServiceKey(ProviderSearchIndex.normalize(provider.getService()));
+        provider.setLocationKey(ProviderSearchIndex.normalize(provider.getLocation()));
+    }
+
+    /**
+     * Walks the providers in _id order, one batch at a time with only the four fields it
+     * compares, and rewrites the keys that differ from what normalize() gives. The keys are
+     * computed here rather than with $trim/$toLower so they match queries exactly: blank
+     * values become null, and trimming and lower-casing follow Java's rules, not Mongo's
+     * ASCII-only ones. Keys written by an older backfill are corrected the same way.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void backfillKeys() {
+        long updated = 0;
+        String after = null;
+        try {
+            List<Provider> batch;
+            do {
+                Query page = new Query(after == null ? new Criteria() : Criteria.where("_id").gt(after))
+                        .with(Sort.by("_id"))
+                        .limit(BACKFILL_BATCH_SIZE);
+                page.fields().include("service", "location", "serviceKey", "locationKey");
+                batch = mongoTemplate.find(page, Provider.class);
+
+                BulkOperations bulk = null;
+                for (Provider provider : batch) {
+                    String serviceKey = ProviderSearchIndex.normalize(provider.getService());
+                    String locationKey = ProviderSearchIndex.normalize(provider.getLocation());
+                    if (Objects.equals(serviceKey, provider.getServiceKey())
+                            && Objects.equals(locationKey, provider.getLocationKey())) {
+                        continue;
+                    }
+                    if (bulk == null) {
+                        bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Provider.class);
+                    }
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(provider.getId())),
+                            new Update().set("serviceKey", serviceKey).set("locationKey", locationKey));
+                }
+                if (bulk != null) {
+                    updated += bulk.execute().getModifiedCount();
+                }
+                if (!batch.isEmpty()) {
+                    after = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == BACKFILL_BATCH_SIZE);
+            if (updated > 0) {
+                log.info("Backfilled search keys on {} providers", updated);
+            }
+        } catch (Exception e) {
+            log.warn("Could not backfill provider search keys: {}", e.getMessage());
+        }
+    }
+}
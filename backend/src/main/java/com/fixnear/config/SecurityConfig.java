@@ -1,9 +1,14 @@
 package com.fixnear.config;
 
 import com.fixnear.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.SingleResultAuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -16,14 +21,20 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtFilter;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final Environment environment;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtFilter, CorsConfigurationSource corsConfigurationSource) {
+    public SecurityConfig(JwtAuthenticationFilter jwtFilter, CorsConfigurationSource corsConfigurationSource,
+                          Environment environment) {
         this.jwtFilter = jwtFilter;
         this.corsConfigurationSource = corsConfigurationSource;
+        this.environment = environment;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        // The scrape is left open only while actuator has a listener of its own, on the
+        // internal management address; on the application port it needs the ADMIN role
+        boolean internalActuator = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
 
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
@@ -32,6 +43,10 @@ public class SecurityConfig {
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authorizeHttpRequests(auth -> auth
+                // Async dispatches finish an already authorized request (SSE streams,
+                // Flux/Mono results) and arrive without the JWT filter having run again
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // Public endpoints
                 .requestMatchers(
                     "/api/auth/**",
@@ -39,6 +54,13 @@ public class SecurityConfig {
                     "/services/**"
                 ).permitAll()
                 
+                // Health checks; the rest of actuator is admin only
+                .requestMatchers("/livez", "/readyz", "/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/prometheus").access(internalActuator
+                        ? SingleResultAuthorizationManager.permitAll()
+                        : AuthorityAuthorizationManager.hasRole("ADMIN"))
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                 // Admin endpoints - only ADMIN role
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 
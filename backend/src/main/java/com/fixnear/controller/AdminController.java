@@ -1,18 +1,37 @@
 package com.fixnear.controller;
 
+import com.fixnear.config.MongoIndexManager;
+import com.fixnear.config.MongoSlowQueryProfiler;
+import com.fixnear.dto.CursorPage;
+import com.fixnear.exception.SlotUnavailableException;
 import com.fixnear.model.Booking;
-import com.fixnear.model.Provider;
 import com.fixnear.model.User;
 import com.fixnear.service.BookingService;
+import com.fixnear.service.ExportService;
+import com.fixnear.service.ImportService;
 import com.fixnear.service.ProviderService;
+import com.fixnear.service.StatsService;
 import com.fixnear.service.UserService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -28,61 +47,92 @@ public class AdminController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private MongoIndexManager mongoIndexManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MongoSlowQueryProfiler slowQueryProfiler;
+
     // ✅ GET ADMIN DASHBOARD WITH STATISTICS
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboard() {
         try {
-            Map<String, Object> dashboard = new HashMap<>();
-
-            // Get statistics
-            List<User> allUsers = userService.getAllUsers();
-            List<Provider> allProviders = providerService.getAllProviders();
-            List<Booking> allBookings = bookingService.getAllBookings();
-
-            dashboard.put("totalUsers", allUsers.size());
-            dashboard.put("totalProviders", allProviders.size());
-            dashboard.put("totalBookings", allBookings.size());
-
-            // Count bookings by status
-            long completedBookings = allBookings.stream()
-                    .filter(b -> "COMPLETED".equals(b.getStatus()))
-                    .count();
-            long pendingBookings = allBookings.stream()
-                    .filter(b -> "PENDING".equals(b.getStatus()))
-                    .count();
-            long confirmedBookings = allBookings.stream()
-                    .filter(b -> "CONFIRMED".equals(b.getStatus()))
-                    .count();
-
-            dashboard.put("completedBookings", completedBookings);
-            dashboard.put("pendingBookings", pendingBookings);
-            dashboard.put("confirmedBookings", confirmedBookings);
-
-            // Average provider rating
-            double avgRating = allProviders.stream()
-                    .mapToDouble(Provider::getRating)
-                    .average()
-                    .orElse(0.0);
-            dashboard.put("averageProviderRating", avgRating);
-
-            // Active providers
-            long activeProviders = allProviders.stream()
-                    .filter(Provider::isAvailable)
-                    .count();
-            dashboard.put("activeProviders", activeProviders);
-
-            return ResponseEntity.ok(dashboard);
+            return ResponseEntity.ok(statsService.getDashboard());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving dashboard: " + e.getMessage());
         }
     }
 
-    // ✅ GET ALL USERS
+    // ✅ REBUILD DASHBOARD COUNTERS FROM THE COLLECTIONS
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<?> rebuildStats() {
+        try {
+            statsService.rebuild();
+            return ResponseEntity.ok(statsService.getAnalytics());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error rebuilding stats: " + e.getMessage());
+        }
+    }
+
+    // ✅ INDEX USAGE PER COLLECTION ($indexStats)
+    @GetMapping("/indexes")
+    public ResponseEntity<?> getIndexUsage() {
+        try {
+            return ResponseEntity.ok(mongoIndexManager.indexUsage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving index usage: " + e.getMessage());
+        }
+    }
+
+    // ✅ RECENT SLOW MONGO OPERATIONS WITH THEIR EXPLAIN SAMPLES
+    @GetMapping("/diagnostics/slow-queries")
+    public ResponseEntity<?> getSlowQueries() {
+        return ResponseEntity.ok(slowQueryProfiler.recent());
+    }
+
+    // ✅ LOOKUP CACHE HIT RATIOS (since startup)
+    @GetMapping("/caches")
+    public ResponseEntity<?> getCacheStats() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                CacheStats stats = cache.getNativeCache().stats();
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("size", cache.getNativeCache().estimatedSize());
+                row.put("hits", stats.hitCount());
+                row.put("misses", stats.missCount());
+                row.put("hitRatio", stats.hitRate());
+                row.put("evictions", stats.evictionCount());
+                caches.put(name, row);
+            }
+        }
+        return ResponseEntity.ok(caches);
+    }
+
+    // ✅ GET ALL USERS (limit/after for a keyset page, else the first CursorPage.MAX_LIMIT as a list)
     @GetMapping("/users")
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String after,
+                                         @RequestParam(required = false) Integer limit) {
         try {
-            return ResponseEntity.ok(userService.getAllUsers());
+            if (after != null || limit != null) {
+                return ResponseEntity.ok(userService.getUsersPage(after, limit));
+            }
+            return ResponseEntity.ok(userService.getUsersPage(null, CursorPage.MAX_LIMIT).getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving users: " + e.getMessage());
@@ -128,11 +178,15 @@ public class AdminController {
         }
     }
 
-    // ✅ GET ALL PROVIDERS (Admin view)
+    // ✅ GET ALL PROVIDERS (Admin view, limit/after for a keyset page, else the first CursorPage.MAX_LIMIT)
     @GetMapping("/providers")
-    public ResponseEntity<?> getAllProviders() {
+    public ResponseEntity<?> getAllProviders(@RequestParam(required = false) String after,
+                                             @RequestParam(required = false) Integer limit) {
         try {
-            return ResponseEntity.ok(providerService.getAllProviders());
+            if (after != null || limit != null) {
+                return ResponseEntity.ok(providerService.searchProvidersPage(null, null, after, limit));
+            }
+            return ResponseEntity.ok(providerService.searchProvidersPage(null, null, null, CursorPage.MAX_LIMIT).getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving providers: " + e.getMessage());
@@ -151,11 +205,15 @@ public class AdminController {
         }
     }
 
-    // ✅ GET ALL BOOKINGS (Admin view)
+    // ✅ GET ALL BOOKINGS (Admin view, limit/after for a keyset page, else the first CursorPage.MAX_LIMIT)
     @GetMapping("/bookings")
-    public ResponseEntity<?> getAllBookings() {
+    public ResponseEntity<?> getAllBookings(@RequestParam(required = false) String after,
+                                            @RequestParam(required = false) Integer limit) {
         try {
-            return ResponseEntity.ok(bookingService.getAllBookings());
+            if (after != null || limit != null) {
+                return ResponseEntity.ok(bookingService.getBookingsPage(null, null, after, limit));
+            }
+            return ResponseEntity.ok(bookingService.getBookingsPage(null, null, null, CursorPage.MAX_LIMIT).getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving bookings: " + e.getMessage());
@@ -179,12 +237,12 @@ public class AdminController {
         try {
             return bookingService.getBookingById(id)
                     .map(booking -> {
-                        booking.setStatus(status);
-                        booking.setUpdatedAt(new Date());
-                        Booking updated = bookingService.createBooking(booking);
+                        Booking updated = bookingService.updateBookingStatus(booking, status);
                         return ResponseEntity.ok(updated);
                     })
                     .orElse(ResponseEntity.notFound().build());
+        } catch (SlotUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error updating booking: " + e.getMessage());
@@ -195,43 +253,115 @@ public class AdminController {
     @GetMapping("/analytics")
     public ResponseEntity<?> getAnalytics() {
         try {
-            Map<String, Object> analytics = new HashMap<>();
-
-            List<User> allUsers = userService.getAllUsers();
-            List<Provider> allProviders = providerService.getAllProviders();
-            List<Booking> allBookings = bookingService.getAllBookings();
-
-            // User statistics
-            analytics.put("totalUsers", allUsers.size());
-            long enabledUsers = allUsers.stream().filter(User::isEnabled).count();
-            analytics.put("enabledUsers", enabledUsers);
-            analytics.put("disabledUsers", allUsers.size() - enabledUsers);
-
-            // Provider statistics
-            analytics.put("totalProviders", allProviders.size());
-            long availableProviders = allProviders.stream().filter(Provider::isAvailable).count();
-            analytics.put("availableProviders", availableProviders);
-
-            // Booking statistics
-            analytics.put("totalBookings", allBookings.size());
-            long completedBookings = allBookings.stream()
-                    .filter(b -> "COMPLETED".equals(b.getStatus()))
-                    .count();
-            long cancelledBookings = allBookings.stream()
-                    .filter(b -> "CANCELLED".equals(b.getStatus()))
-                    .count();
-            analytics.put("completedBookings", completedBookings);
-            analytics.put("cancelledBookings", cancelledBookings);
-
-            // Service statistics
-            Map<String, Long> serviceCount = allProviders.stream()
-                    .collect(Collectors.groupingBy(Provider::getService, Collectors.counting()));
-            analytics.put("serviceBreakdown", serviceCount);
-
-            return ResponseEntity.ok(analytics);
+            return ResponseEntity.ok(statsService.getAnalytics());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving analytics: " + e.getMessage());
         }
     }
+
+    // ✅ EXPORT BOOKINGS AS NDJSON OR CSV (streamed, from/to are inclusive booking dates)
+    @GetMapping("/export/bookings")
+    public void exportBookings(
+            @RequestParam(defaultValue = ExportService.NDJSON) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        if (!ExportService.isSupportedFormat(format)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "format must be ndjson or csv");
+            return;
+        }
+        try (OutputStream out = openExport(response, "bookings", format, gzip, acceptEncoding)) {
+            exportService.exportBookings(out, format, startOfDay(from),
+                    to == null ? null : startOfDay(to.plusDays(1)), status);
+        }
+    }
+
+    // ✅ EXPORT PROVIDERS AS NDJSON OR CSV (streamed)
+    @GetMapping("/export/providers")
+    public void exportProviders(
+            @RequestParam(defaultValue = ExportService.NDJSON) String format,
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) Boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        if (!ExportService.isSupportedFormat(format)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "format must be ndjson or csv");
+            return;
+        }
+        try (OutputStream out = openExport(response, "providers", format, gzip, acceptEncoding)) {
+            exportService.exportProviders(out, format, service, available);
+        }
+    }
+
+    // gzip is used when asked for explicitly, otherwise when the client accepts it
+    private OutputStream openExport(HttpServletResponse response, String name, String format,
+                                    Boolean gzip, String acceptEncoding) throws IOException {
+        boolean csv = ExportService.CSV.equalsIgnoreCase(format);
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + (csv ? ".csv" : ".ndjson") + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        boolean compress = gzip != null ? gzip : PrecompressedResponseCache.acceptsGzip(acceptEncoding);
+        if (compress) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new GZIPOutputStream(response.getOutputStream(), 8192);
+        }
+        return response.getOutputStream();
+    }
+
+    // ✅ IMPORT PROVIDERS FROM NDJSON OR CSV (streamed, in the export's columns)
+    @PostMapping("/import/providers")
+    public ResponseEntity<?> importProviders(@RequestParam(required = false) String format,
+                                             @RequestParam(required = false) Integer batchSize,
+                                             HttpServletRequest request) throws IOException {
+        String resolved = importFormat(format, request);
+        if (resolved == null) {
+            return ResponseEntity.badRequest().body("format must be ndjson or csv");
+        }
+        try (InputStream in = openImport(request)) {
+            return ResponseEntity.ok(importService.importProviders(in, resolved, batchSize));
+        }
+    }
+
+    // ✅ IMPORT BOOKINGS FROM NDJSON OR CSV (streamed, slots are claimed as for new bookings)
+    @PostMapping("/import/bookings")
+    public ResponseEntity<?> importBookings(@RequestParam(required = false) String format,
+                                            @RequestParam(required = false) Integer batchSize,
+                                            HttpServletRequest request) throws IOException {
+        String resolved = importFormat(format, request);
+        if (resolved == null) {
+            return ResponseEntity.badRequest().body("format must be ndjson or csv");
+        }
+        try (InputStream in = openImport(request)) {
+            return ResponseEntity.ok(importService.importBookings(in, resolved, batchSize));
+        }
+    }
+
+    // format wins over the Content-Type, which decides only between text/csv and NDJSON
+    private static String importFormat(String format, HttpServletRequest request) {
+        if (format == null) {
+            String contentType = request.getContentType();
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")
+                    ? ExportService.CSV : ExportService.NDJSON;
+        }
+        return ExportService.isSupportedFormat(format) ? format : null;
+    }
+
+    // Uploads may be gzipped, as exports are
+    private static InputStream openImport(HttpServletRequest request) throws IOException {
+        return PrecompressedResponseCache.acceptsGzip(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+                ? new GZIPInputStream(request.getInputStream(), 8192)
+                : request.getInputStream();
+    }
+
+    private static Date startOfDay(LocalDate date) {
+        return date == null ? null : Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
 }
@@ -1,11 +1,15 @@
 package com.fixnear.controller;
 
 import com.fixnear.dto.*;
+import com.fixnear.exception.ServiceOverloadedException;
 import com.fixnear.model.User;
 import com.fixnear.repository.UserRepository;
 import com.fixnear.security.JwtUtil;
+import com.fixnear.security.PasswordHasher;
+import com.fixnear.service.UserService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,15 +20,18 @@ import java.util.List;
 public class AuthController {
 
     private final UserRepository repo;
-    private final PasswordEncoder encoder;
+    private final PasswordHasher hasher;
     private final JwtUtil jwtUtil;
+    private final UserService userService;
 
     public AuthController(UserRepository repo,
-                          PasswordEncoder encoder,
-                          JwtUtil jwtUtil) {
+                          PasswordHasher hasher,
+                          JwtUtil jwtUtil,
+                          UserService userService) {
         this.repo = repo;
-        this.encoder = encoder;
+        this.hasher = hasher;
         this.jwtUtil = jwtUtil;
+        this.userService = userService;
     }
 
     @PostMapping("/signup")
@@ -49,14 +56,16 @@ public class AuthController {
             User user = new User();
             user.setName(req.getName());
             user.setEmail(req.getEmail());
-            user.setPassword(encoder.encode(req.getPassword()));
+            user.setPassword(hasher.encode(req.getPassword()));
             user.setRoles(List.of("USER"));
-            user = repo.save(user);
+            user = userService.createUser(user);
 
-            String token = jwtUtil.generateToken(user.getEmail());
+            String token = jwtUtil.generateToken(user);
             return ResponseEntity.ok(
                     new AuthResponse("Signup successful", token, user.getId(), user.getName(), user.getEmail())
             );
+        } catch (ServiceOverloadedException e) {
+            return overloaded(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new AuthResponse("Signup failed: " + e.getMessage(), null));
@@ -75,18 +84,31 @@ public class AuthController {
             User user = repo.findByEmail(req.getEmail())
                     .orElse(null);
 
-            if (user == null || !encoder.matches(req.getPassword(), user.getPassword())) {
+            if (user == null || !hasher.matches(req.getPassword(), user.getPassword())) {
                 return ResponseEntity.badRequest()
                         .body(new AuthResponse("Invalid email or password", null));
             }
 
-            String token = jwtUtil.generateToken(user.getEmail());
+            // Hashes made at a lower BCrypt cost are upgraded while the password is at hand
+            if (hasher.needsRehash(user.getPassword())) {
+                user = userService.updatePassword(user, hasher.encode(req.getPassword()));
+            }
+
+            String token = jwtUtil.generateToken(user);
             return ResponseEntity.ok(
                     new AuthResponse("Login successful", token, user.getId(), user.getName(), user.getEmail())
             );
+        } catch (ServiceOverloadedException e) {
+            return overloaded(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new AuthResponse("Login failed: " + e.getMessage(), null));
         }
     }
+
+    private ResponseEntity<AuthResponse> overloaded(ServiceOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new AuthResponse(e.getMessage(), null));
+    }
 }
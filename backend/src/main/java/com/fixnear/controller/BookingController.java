@@ -2,14 +2,19 @@ package com.fixnear.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.fixnear.dto.BookingMapper;
 import com.fixnear.dto.BookingRequest;
 import com.fixnear.dto.BookingResponse;
+import com.fixnear.dto.CursorPage;
+import com.fixnear.exception.SlotUnavailableException;
 import com.fixnear.model.Booking;
 import com.fixnear.model.Provider;
 import com.fixnear.model.User;
 import com.fixnear.service.BookingService;
+import com.fixnear.service.BookingStreamService;
 import com.fixnear.service.ProviderService;
 import com.fixnear.service.UserService;
 
@@ -31,6 +36,9 @@ public class BookingController {
     @Autowired
     private ProviderService providerService;
 
+    @Autowired
+    private BookingStreamService bookingStreamService;
+
     // Create a new booking
     @PostMapping
     public ResponseEntity<?> createBooking(@RequestBody BookingRequest request) {
@@ -44,18 +52,17 @@ public class BookingController {
             }
 
             // Validate user exists
-            if (!userService.getUserById(request.getUserId()).isPresent()) {
+            User user = userService.getUserById(request.getUserId()).orElse(null);
+            if (user == null) {
                 return ResponseEntity.badRequest().body("User not found");
             }
 
             // Validate provider exists
-            if (!providerService.getProviderById(request.getProviderId()).isPresent()) {
+            Provider provider = providerService.getProviderById(request.getProviderId()).orElse(null);
+            if (provider == null) {
                 return ResponseEntity.badRequest().body("Provider not found");
             }
 
-            User user = userService.getUserById(request.getUserId()).get();
-            Provider provider = providerService.getProviderById(request.getProviderId()).get();
-
             Booking booking = new Booking();
             booking.setUserId(request.getUserId());
             booking.setUserName(user.getName());
@@ -75,19 +82,31 @@ public class BookingController {
             booking.setUpdatedAt(new Date());
 
             Booking createdBooking = bookingService.createBooking(booking);
-            return ResponseEntity.ok(convertToResponse(createdBooking));
+            return ResponseEntity.ok(BookingMapper.toResponse(createdBooking));
+        } catch (SlotUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error creating booking: " + e.getMessage());
         }
     }
 
+    // Live booking changes for a provider dashboard (Server-Sent Events); each event names
+    // the booking, so the dashboard refetches only what changed
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamBookings(@RequestParam String providerId) {
+        if (providerService.getProviderById(providerId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(bookingStreamService.subscribe(providerId));
+    }
+
     // Get booking by ID
     @GetMapping("/{id}")
     public ResponseEntity<?> getBooking(@PathVariable String id) {
         try {
             return bookingService.getBookingById(id)
-                    .map(booking -> ResponseEntity.ok(convertToResponse(booking)))
+                    .map(booking -> ETags.ok(BookingMapper.toResponse(booking), booking))
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -96,55 +115,43 @@ public class BookingController {
     }
 
     // Get bookings by userId or providerId (supports both path and query params)
+    // Passing limit and/or after returns a keyset page; without them the first
+    // CursorPage.MAX_LIMIT bookings come back as a plain list
     @GetMapping
     public ResponseEntity<?> getBookings(
             @RequestParam(required = false) String userId,
-            @RequestParam(required = false) String providerId) {
+            @RequestParam(required = false) String providerId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
         try {
-            if (userId != null && !userId.isEmpty()) {
-                List<Booking> bookings = bookingService.getBookingsByUserId(userId);
-                return ResponseEntity.ok(bookings.stream()
-                        .map(this::convertToResponse)
-                        .collect(Collectors.toList()));
-            } else if (providerId != null && !providerId.isEmpty()) {
-                List<Booking> bookings = bookingService.getBookingsByProviderId(providerId);
-                return ResponseEntity.ok(bookings.stream()
-                        .map(this::convertToResponse)
-                        .collect(Collectors.toList()));
+            if (after != null || limit != null) {
+                CursorPage<Booking> page = bookingService.getBookingsPage(userId, providerId, after, limit);
+                return ETags.ok(page.map(BookingMapper::toResponse),
+                        ETags.of(page.getItems(), ETags::revision, String.valueOf(page.getNextCursor())));
             }
-            // If neither parameter provided, return all bookings (for admin)
-            List<Booking> allBookings = bookingService.getAllBookings();
-            return ResponseEntity.ok(allBookings.stream()
-                    .map(this::convertToResponse)
-                    .collect(Collectors.toList()));
+            return list(bookingService.getBookingsPage(userId, providerId, null, CursorPage.MAX_LIMIT).getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving bookings: " + e.getMessage());
         }
     }
 
-    // Get bookings for current user
+    // Get bookings for current user (the first CursorPage.MAX_LIMIT, as on GET without limit)
     @GetMapping("/user/{userId}")
     public ResponseEntity<?> getUserBookings(@PathVariable String userId) {
         try {
-            List<Booking> bookings = bookingService.getBookingsByUserId(userId);
-            return ResponseEntity.ok(bookings.stream()
-                    .map(this::convertToResponse)
-                    .collect(Collectors.toList()));
+            return list(bookingService.getBookingsPage(userId, null, null, CursorPage.MAX_LIMIT).getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving bookings: " + e.getMessage());
         }
     }
 
-    // Get bookings for a provider
+    // Get bookings for a provider (the first CursorPage.MAX_LIMIT)
     @GetMapping("/provider/{providerId}")
     public ResponseEntity<?> getProviderBookings(@PathVariable String providerId) {
         try {
-            List<Booking> bookings = bookingService.getBookingsByProviderId(providerId);
-            return ResponseEntity.ok(bookings.stream()
-                    .map(this::convertToResponse)
-                    .collect(Collectors.toList()));
+            return list(bookingService.getBookingsPage(null, providerId, null, CursorPage.MAX_LIMIT).getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error retrieving bookings: " + e.getMessage());
@@ -190,10 +197,10 @@ public class BookingController {
                     // Accept unknown status but uppercase it
                     mapped = s;
             }
-            booking.setStatus(mapped);
-            booking.setUpdatedAt(new Date());
-            Booking updatedBooking = bookingService.createBooking(booking);
-            return ResponseEntity.ok(convertToResponse(updatedBooking));
+            Booking updatedBooking = bookingService.updateBookingStatus(booking, mapped);
+            return ResponseEntity.ok(BookingMapper.toResponse(updatedBooking));
+        } catch (SlotUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error updating booking: " + e.getMessage());
@@ -207,12 +214,9 @@ public class BookingController {
             Booking booking = bookingService.getBookingById(id)
                     .orElseThrow(() -> new RuntimeException("Booking not found"));
 
-            booking.setRating((int) reviewRequest.getRating());
-            booking.setReview(reviewRequest.getReview());
-            booking.setStatus("COMPLETED");
-            booking.setUpdatedAt(new Date());
-            Booking updatedBooking = bookingService.createBooking(booking);
-            return ResponseEntity.ok(convertToResponse(updatedBooking));
+            Booking updatedBooking = bookingService.addReview(
+                    booking, (int) reviewRequest.getRating(), reviewRequest.getReview());
+            return ResponseEntity.ok(BookingMapper.toResponse(updatedBooking));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error adding review: " + e.getMessage());
@@ -225,9 +229,7 @@ public class BookingController {
         try {
             Booking booking = bookingService.getBookingById(id)
                     .orElseThrow(() -> new RuntimeException("Booking not found"));
-            booking.setStatus("CANCELLED");
-            booking.setUpdatedAt(new Date());
-            bookingService.createBooking(booking);
+            bookingService.updateBookingStatus(booking, "CANCELLED");
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -235,22 +237,11 @@ public class BookingController {
         }
     }
 
-    private BookingResponse convertToResponse(Booking booking) {
-        BookingResponse response = new BookingResponse();
-        response.setId(booking.getId());
-        response.setUserId(booking.getUserId());
-        response.setProviderId(booking.getProviderId());
-        response.setUserName(booking.getUserName());
-        response.setProviderName(booking.getProviderName());
-        response.setService(booking.getService());
-        response.setLocation(booking.getLocation());
-        response.setPrice(booking.getPrice());
-        response.setStatus(booking.getStatus());
-        response.setBookingDate(booking.getBookingDate());
-        response.setDescription(booking.getDescription());
-        response.setRating((int) booking.getRating());
-        response.setReview(booking.getReview());
-        return response;
+    // Converted list tagged with the revisions of the bookings it was built from
+    private ResponseEntity<List<BookingResponse>> list(List<Booking> bookings) {
+        return ETags.ok(bookings.stream()
+                .map(BookingMapper::toResponse)
+                .collect(Collectors.toList()), ETags.of(bookings, ETags::revision));
     }
 
     public static class ReviewRequest {
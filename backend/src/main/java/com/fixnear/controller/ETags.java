@@ -0,0 +1,72 @@
+package com.fixnear.controller;
+
+import com.fixnear.model.Booking;
+import com.fixnear.model.Provider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * Strong ETags built from stored versions rather than from the serialized body, so a
+ * matching If-None-Match is answered with 304 before anything is written. Spring's
+ * ResponseEntity handling does the comparison for GET and HEAD.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String revision(Provider provider) {
+        return provider.getId() + ":" + provider.getVersion() + ":" + millis(provider.getUpdatedAt());
+    }
+
+    static String revision(Booking booking) {
+        return booking.getId() + ":" + millis(booking.getUpdatedAt());
+    }
+
+    // One tag for a whole list: changes when any member changes, is added, removed or reordered
+    static <T> String of(Collection<T> items, Function<T, String> revisionOf, String... extra) {
+        StringBuilder key = new StringBuilder(items.size() * 48);
+        for (T item : items) {
+            key.append(revisionOf.apply(item)).append('\n');
+        }
+        for (String part : extra) {
+            key.append(part).append('\n');
+        }
+        return quote(DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Browsers keep the body but revalidate it on every use
+    static <T> ResponseEntity<T> ok(T body, String etag) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(body);
+    }
+
+    static ResponseEntity<Provider> ok(Provider provider) {
+        return withLastModified(provider, quote(revision(provider)), provider.getUpdatedAt());
+    }
+
+    static <T> ResponseEntity<T> ok(T body, Booking booking) {
+        return withLastModified(body, quote(revision(booking)), booking.getUpdatedAt());
+    }
+
+    private static <T> ResponseEntity<T> withLastModified(T body, String etag, Date updatedAt) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag);
+        if (updatedAt != null) {
+            builder.lastModified(updatedAt.getTime());
+        }
+        return builder.body(body);
+    }
+
+    private static long millis(Date date) {
+        return date == null ? 0 : date.getTime();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
@@ -0,0 +1,121 @@
+package com.fixnear.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized and gzipped bodies of hot catalog responses, keyed by their ETag. The ETag is a
+ * digest of every member's revision, so an entry never goes stale: a change produces a new
+ * tag and the old entry simply ages out. A hit skips both Jackson and the connector's
+ * per-response compression, and the stored gzip uses the best compression level since it is
+ * paid once.
+ */
+@Component
+public class PrecompressedResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final long minCompressBytes;
+    private final Cache<String, Body> bodies;
+
+    public PrecompressedResponseCache(ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${server.compression.min-response-size:2KB}") DataSize minCompressSize,
+                                      @Value("${fixnear.http.precompressed.max-size:16MB}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.minCompressBytes = minCompressSize.toBytes();
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String etag, Body body) -> body.json.length + (body.gzip == null ? 0 : body.gzip.length))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "precompressedResponses");
+    }
+
+    // JSON body for the given ETag, gzipped when the client accepts it and it is worth it
+    public ResponseEntity<byte[]> respond(String etag, Object body, String acceptEncoding) {
+        Body cached = bodies.get(etag, key -> encode(body));
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzip != null && acceptsGzip(acceptEncoding)) {
+            // A strong ETag belongs to one representation, so the gzipped one gets its own
+            return builder.eTag(etag.substring(0, etag.length() - 1) + "-gzip\"")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(cached.gzip);
+        }
+        return builder.eTag(etag).body(cached.json);
+    }
+
+    private Body encode(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new Body(json, json.length >= minCompressBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Honours an explicit gzip;q=0; also used by the admin export and import streams
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+                for (int i = 1; i < tokens.length; i++) {
+                    String param = tokens[i].trim().replace(" ", "");
+                    if (param.startsWith("q=") && isZero(param.substring(2))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZero(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private record Body(byte[] json, byte[] gzip) {
+    }
+}
@@ -2,70 +2,84 @@ package com.fixnear.controller;
 
 import com.fixnear.model.Provider;
 import com.fixnear.service.ProviderService;
+import com.fixnear.service.SlotEngine;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
+// Catalog reads (list, search, available, by location, by id) live in ProviderQueryController
+// or, under the "reactive" profile, in ReactiveProviderQueryController
 @RestController
 @RequestMapping("providers")
 @CrossOrigin(origins = "http://localhost:3000")
 public class ProviderController {
 
+    private static final double MAX_NEARBY_RADIUS_KM = 200;
+    private static final int MAX_NEARBY_LIMIT = 100;
+    private static final int MAX_SLOT_RANGE_DAYS = 31;
+
     private final ProviderService providerService;
+    private final SlotEngine slotEngine;
 
-    public ProviderController(ProviderService providerService) {
+    public ProviderController(ProviderService providerService, SlotEngine slotEngine) {
         this.providerService = providerService;
+        this.slotEngine = slotEngine;
     }
 
-    // ✅ GET ALL PROVIDERS OR FILTER BY SERVICE
-    @GetMapping
-    public ResponseEntity<?> getProviders(
+    // ✅ NEARBY PROVIDERS SORTED BY DISTANCE
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getNearbyProviders(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") double radiusKm,
             @RequestParam(required = false) String service,
-            @RequestParam(required = false) String location
+            @RequestParam(defaultValue = "20") int limit
     ) {
-        try {
-            // Use search method to handle all combinations
-            return ResponseEntity.ok(providerService.searchProviders(service, location));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error retrieving providers: " + e.getMessage());
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            return ResponseEntity.badRequest().body("lat must be within [-90, 90] and lng within [-180, 180]");
         }
-    }
-
-    // ✅ GET AVAILABLE PROVIDERS
-    @GetMapping("/available")
-    public ResponseEntity<?> getAvailableProviders() {
-        try {
-            return ResponseEntity.ok(providerService.getAvailableProviders());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error retrieving available providers: " + e.getMessage());
+        if (radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM) {
+            return ResponseEntity.badRequest().body("radiusKm must be between 0 and " + MAX_NEARBY_RADIUS_KM);
+        }
+        if (limit < 1 || limit > MAX_NEARBY_LIMIT) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_NEARBY_LIMIT);
         }
-    }
-
-    // ✅ SEARCH BY LOCATION
-    @GetMapping("/location/{location}")
-    public ResponseEntity<?> getProvidersByLocation(@PathVariable String location) {
         try {
-            return ResponseEntity.ok(providerService.getProvidersByLocation(location));
+            return ResponseEntity.ok(providerService.findNearbyProviders(lat, lng, radiusKm, service, limit));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error retrieving providers by location: " + e.getMessage());
+                    .body("Error retrieving nearby providers: " + e.getMessage());
         }
     }
 
-    // ✅ GET PROVIDER BY ID
-    @GetMapping("/{id}")
-    public ResponseEntity<?> getProviderById(@PathVariable String id) {
+    // ✅ FREE BOOKING START TIMES (from/to inclusive, default the next 7 days)
+    @GetMapping("/{id}/slots")
+    public ResponseEntity<?> getFreeSlots(
+            @PathVariable String id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusDays(6);
+        if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= MAX_SLOT_RANGE_DAYS) {
+            return ResponseEntity.badRequest().body("to must be on or after from and within " + MAX_SLOT_RANGE_DAYS + " days");
+        }
         try {
-            return providerService.getProviderById(id)
-                    .map(ResponseEntity::ok)
-                    .orElse(ResponseEntity.notFound().build());
+            if (providerService.getProviderById(id).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of(
+                    "bookingMinutes", slotEngine.getBookingMinutes(),
+                    "starts", slotEngine.freeSlots(id, start, end)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error retrieving provider: " + e.getMessage());
+                    .body("Error retrieving free slots: " + e.getMessage());
         }
     }
 
@@ -74,7 +88,7 @@ public class ProviderController {
     public ResponseEntity<?> getProviderByUserId(@PathVariable String userId) {
         try {
             return providerService.getProviderByUserId(userId)
-                    .map(ResponseEntity::ok)
+                    .map(ETags::ok)
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -119,12 +133,8 @@ public class ProviderController {
     @PutMapping("/{id}/availability")
     public ResponseEntity<?> updateAvailability(@PathVariable String id, @RequestParam boolean available) {
         try {
-            return providerService.getProviderById(id)
-                    .map(provider -> {
-                        provider.setAvailable(available);
-                        Provider updated = providerService.saveProvider(provider);
-                        return ResponseEntity.ok(updated);
-                    })
+            return providerService.updateAvailability(id, available)
+                    .map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
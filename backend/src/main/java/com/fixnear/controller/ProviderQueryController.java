@@ -0,0 +1,95 @@
+package com.fixnear.controller;
+
+import com.fixnear.dto.CursorPage;
+import com.fixnear.model.Provider;
+import com.fixnear.service.ProviderService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Blocking catalog reads; replaced by ReactiveProviderQueryController under the "reactive" profile.
+// Every read carries an ETag, so repeat views revalidate with If-None-Match and get 304.
+@RestController
+@RequestMapping("providers")
+@CrossOrigin(origins = "http://localhost:3000")
+@Profile("!reactive")
+public class ProviderQueryController {
+
+    private final ProviderService providerService;
+    private final PrecompressedResponseCache responseCache;
+
+    public ProviderQueryController(ProviderService providerService, PrecompressedResponseCache responseCache) {
+        this.providerService = providerService;
+        this.responseCache = responseCache;
+    }
+
+    // ✅ GET ALL PROVIDERS OR FILTER BY SERVICE (limit/after for a keyset page; without them
+    // the first CursorPage.MAX_LIMIT matches come back as a plain list)
+    @GetMapping
+    public ResponseEntity<?> getProviders(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        try {
+            if (after != null || limit != null) {
+                CursorPage<Provider> page = providerService.searchProvidersPage(service, location, after, limit);
+                return ETags.ok(page, ETags.of(page.getItems(), ETags::revision, String.valueOf(page.getNextCursor())));
+            }
+            // Use search method to handle all combinations
+            return list(providerService.searchProviders(service, location), acceptEncoding);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving providers: " + e.getMessage());
+        }
+    }
+
+    // ✅ GET AVAILABLE PROVIDERS
+    @GetMapping("/available")
+    public ResponseEntity<?> getAvailableProviders(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            return list(providerService.getAvailableProviders(), acceptEncoding);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving available providers: " + e.getMessage());
+        }
+    }
+
+    // ✅ SEARCH BY LOCATION
+    @GetMapping("/location/{location}")
+    public ResponseEntity<?> getProvidersByLocation(
+            @PathVariable String location,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            return list(providerService.getProvidersByLocation(location), acceptEncoding);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving providers by location: " + e.getMessage());
+        }
+    }
+
+    // ✅ GET PROVIDER BY ID
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getProviderById(@PathVariable String id) {
+        try {
+            return providerService.getProviderById(id)
+                    .map(ETags::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving provider: " + e.getMessage());
+        }
+    }
+
+    // Whole catalog lists are the hot, repeated payloads; their bodies come pre-serialized and pre-gzipped
+    private ResponseEntity<byte[]> list(List<Provider> providers, String acceptEncoding) {
+        return responseCache.respond(ETags.of(providers, ETags::revision), providers, acceptEncoding);
+    }
+}
@@ -0,0 +1,81 @@
+package com.fixnear.controller;
+
+import com.fixnear.dto.CursorPage;
+import com.fixnear.model.Provider;
+import com.fixnear.service.ReactiveProviderService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Catalog reads on the reactive Mongo driver, active under the "reactive" profile. Spring MVC
+ * subscribes to the returned publishers asynchronously, so no servlet thread is held while
+ * Mongo answers. Clients that send Accept: application/x-ndjson (or text/event-stream) get
+ * providers written one by one as they arrive, with demand following the response writes;
+ * application/json still gets a single array.
+ */
+@RestController
+@RequestMapping("providers")
+@CrossOrigin(origins = "http://localhost:3000")
+@Profile("reactive")
+public class ReactiveProviderQueryController {
+
+    private final ReactiveProviderService providerService;
+
+    public ReactiveProviderQueryController(ReactiveProviderService providerService) {
+        this.providerService = providerService;
+    }
+
+    // ✅ GET ALL PROVIDERS OR FILTER BY SERVICE (limit/after for a keyset page)
+    @GetMapping(params = {"!after", "!limit"})
+    public Flux<Provider> getProviders(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String location
+    ) {
+        return providerService.searchProviders(service, location);
+    }
+
+    @GetMapping(params = "after")
+    public Mono<CursorPage<Provider>> getProvidersAfter(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String location,
+            @RequestParam String after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return providerService.searchProvidersPage(service, location, after, limit);
+    }
+
+    @GetMapping(params = {"limit", "!after"})
+    public Mono<CursorPage<Provider>> getProvidersPage(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String location,
+            @RequestParam Integer limit
+    ) {
+        return providerService.searchProvidersPage(service, location, null, limit);
+    }
+
+    // ✅ GET AVAILABLE PROVIDERS
+    @GetMapping("/available")
+    public Flux<Provider> getAvailableProviders() {
+        return providerService.getAvailableProviders();
+    }
+
+    // ✅ SEARCH BY LOCATION
+    @GetMapping("/location/{location}")
+    public Flux<Provider> getProvidersByLocation(@PathVariable String location) {
+        return providerService.getProvidersByLocation(location);
+    }
+
+    // ✅ GET PROVIDER BY ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<?>> getProviderById(@PathVariable String id) {
+        return providerService.getProviderById(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error retrieving provider: " + e.getMessage())));
+    }
+}
@@ -0,0 +1,31 @@
+package com.fixnear.dto;
+
+import com.fixnear.model.Booking;
+
+/**
+ * Maps stored bookings to the API's response shape. Reads nothing but its argument, so
+ * the booking endpoints and the benchmarks share it without wiring a controller.
+ */
+public final class BookingMapper {
+
+    private BookingMapper() {
+    }
+
+    public static BookingResponse toResponse(Booking booking) {
+        BookingResponse response = new BookingResponse();
+        response.setId(booking.getId());
+        response.setUserId(booking.getUserId());
+        response.setProviderId(booking.getProviderId());
+        response.setUserName(booking.getUserName());
+        response.setProviderName(booking.getProviderName());
+        response.setService(booking.getService());
+        response.setLocation(booking.getLocation());
+        response.setPrice(booking.getPrice());
+        response.setStatus(booking.getStatus());
+        response.setBookingDate(booking.getBookingDate());
+        response.setDescription(booking.getDescription());
+        response.setRating((int) booking.getRating());
+        response.setReview(booking.getReview());
+        return response;
+    }
+}
@@ -0,0 +1,52 @@
+package com.fixnear.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list ordered by _id. Pass nextCursor back as "after"
+ * to fetch the following page; it is null on the last page.
+ */
+public class CursorPage<T> {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private List<T> items;
+    private String nextCursor;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> CursorPage<T> of(Slice<T> slice, Function<T, String> idOf) {
+        List<T> items = slice.getContent();
+        String next = slice.hasNext() && !items.isEmpty() ? idOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, next);
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    // First `limit` documents ordered by _id; the Slice query reads one extra to know if more follow
+    public static Pageable request(Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        return PageRequest.of(0, size, Sort.by("id"));
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
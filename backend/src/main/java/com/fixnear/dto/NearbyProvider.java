@@ -0,0 +1,22 @@
+package com.fixnear.dto;
+
+import com.fixnear.model.Provider;
+
+public class NearbyProvider {
+    private Provider provider;
+    private double distanceKm;
+
+    public NearbyProvider() {
+    }
+
+    public NearbyProvider(Provider provider, double distanceKm) {
+        this.provider = provider;
+        this.distanceKm = distanceKm;
+    }
+
+    public Provider getProvider() { return provider; }
+    public void setProvider(Provider provider) { this.provider = provider; }
+
+    public double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(double distanceKm) { this.distanceKm = distanceKm; }
+}
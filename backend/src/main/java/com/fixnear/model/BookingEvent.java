@@ -0,0 +1,68 @@
+package com.fixnear.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// A booking change pushed to provider dashboards; also written to booking_events so other
+// instances can relay it through a change stream
+@Document(collection = "booking_events")
+public class BookingEvent {
+
+    public static final String CREATED = "CREATED";
+    public static final String STATUS_CHANGED = "STATUS_CHANGED";
+    public static final String REVIEWED = "REVIEWED";
+    public static final String UPDATED = "UPDATED";
+    public static final String CANCELLED = "CANCELLED";
+
+    @Id
+    @JsonIgnore
+    private String id;
+
+    private String type;
+    private String bookingId;
+    private String providerId;
+    private String userId;
+    private String status;
+    @JsonIgnore
+    private String origin; // instance that made the change
+    private Date createdAt; // TTL index removes relayed events after a few minutes
+
+    public BookingEvent() {
+    }
+
+    public BookingEvent(String type, Booking booking) {
+        this.type = type;
+        this.bookingId = booking.getId();
+        this.providerId = booking.getProviderId();
+        this.userId = booking.getUserId();
+        this.status = booking.getStatus();
+        this.createdAt = new Date();
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getBookingId() { return bookingId; }
+    public void setBookingId(String bookingId) { this.bookingId = bookingId; }
+
+    public String getProviderId() { return providerId; }
+    public void setProviderId(String providerId) { this.providerId = providerId; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getOrigin() { return origin; }
+    public void setOrigin(String origin) { this.origin = origin; }
+
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+}
@@ -1,8 +1,14 @@
 package com.fixnear.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Date;
+
 @Document(collection = "providers")
 public class Provider {
 
@@ -13,10 +19,20 @@ public class Provider {
     private String service;
     private String userId;
     private String location; // Add location field
+    // Trimmed, lower-cased copies of service/location for exact index seeks; set on save
+    @JsonIgnore
+    private String serviceKey;
+    @JsonIgnore
+    private String locationKey;
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint coordinates; // [longitude, latitude]
     private boolean available;
     private String workingHours;
     private double rating;
     private double price;
+    // Bumped by ProviderService on every write; together they make the HTTP ETag
+    private long version;
+    private Date updatedAt;
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -33,6 +49,15 @@ public class Provider {
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
 
+    public String getServiceKey() { return serviceKey; }
+    public void setServiceKey(String serviceKey) { this.serviceKey = serviceKey; }
+
+    public String getLocationKey() { return locationKey; }
+    public void setLocationKey(String locationKey) { this.locationKey = locationKey; }
+
+    public GeoJsonPoint getCoordinates() { return coordinates; }
+    public void setCoordinates(GeoJsonPoint coordinates) { this.coordinates = coordinates; }
+
     public boolean isAvailable() { return available; }
     public void setAvailable(boolean available) { this.available = available; }
 
@@ -46,4 +71,10 @@ public class Provider {
 
     public double getPrice() { return price; }
     public void setPrice(double price) { this.price = price; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public Date getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Date updatedAt) { this.updatedAt = updatedAt; }
 }
@@ -0,0 +1,35 @@
+package com.fixnear.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// One document per provider time slot; the unique _id is what makes a claim exclusive
+@Document(collection = "slot_claims")
+public class SlotClaim {
+
+    @Id
+    private String id; // providerId:epochDay:slotIndex
+
+    private String bookingId;
+    private Date expiresAt; // TTL index removes the claim once the slot is well in the past
+
+    public SlotClaim() {
+    }
+
+    public SlotClaim(String id, String bookingId, Date expiresAt) {
+        this.id = id;
+        this.bookingId = bookingId;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getBookingId() { return bookingId; }
+    public void setBookingId(String bookingId) { this.bookingId = bookingId; }
+
+    public Date getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Date expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,57 @@
+package com.fixnear.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+@Document(collection = "stats")
+public class StatsSnapshot {
+
+    public static final String GLOBAL_ID = "global";
+
+    @Id
+    private String id = GLOBAL_ID;
+
+    private Map<String, Long> bookingsByStatus = new HashMap<>();
+    private long totalUsers;
+    private long enabledUsers;
+    private long totalProviders;
+    private long availableProviders;
+    private double ratingSum;
+    private Map<String, Long> serviceBreakdown = new HashMap<>(); // keys with '.' and '$' replaced by '_'
+    private Date updatedAt;
+    private long generation; // bumped by every rebuild
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Map<String, Long> getBookingsByStatus() { return bookingsByStatus; }
+    public void setBookingsByStatus(Map<String, Long> bookingsByStatus) { this.bookingsByStatus = bookingsByStatus; }
+
+    public long getTotalUsers() { return totalUsers; }
+    public void setTotalUsers(long totalUsers) { this.totalUsers = totalUsers; }
+
+    public long getEnabledUsers() { return enabledUsers; }
+    public void setEnabledUsers(long enabledUsers) { this.enabledUsers = enabledUsers; }
+
+    public long getTotalProviders() { return totalProviders; }
+    public void setTotalProviders(long totalProviders) { this.totalProviders = totalProviders; }
+
+    public long getAvailableProviders() { return availableProviders; }
+    public void setAvailableProviders(long availableProviders) { this.availableProviders = availableProviders; }
+
+    public double getRatingSum() { return ratingSum; }
+    public void setRatingSum(double ratingSum) { this.ratingSum = ratingSum; }
+
+    public Map<String, Long> getServiceBreakdown() { return serviceBreakdown; }
+    public void setServiceBreakdown(Map<String, Long> serviceBreakdown) { this.serviceBreakdown = serviceBreakdown; }
+
+    public Date getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Date updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getGeneration() { return generation; }
+    public void setGeneration(long generation) { this.generation = generation; }
+}
@@ -1,6 +1,8 @@
 package com.fixnear.repository;
 
 import com.fixnear.model.Booking;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
@@ -12,4 +14,17 @@ public interface BookingRepository extends MongoRepository<Booking, String> {
     List<Booking> findByProviderId(String providerId);
     
     List<Booking> findByStatus(String status);
+
+    // Keyset pages ordered by _id: the first page, then everything after a cursor
+    Slice<Booking> findAllBy(Pageable pageable);
+
+    Slice<Booking> findByIdGreaterThan(String after, Pageable pageable);
+
+    Slice<Booking> findByUserId(String userId, Pageable pageable);
+
+    Slice<Booking> findByUserIdAndIdGreaterThan(String userId, String after, Pageable pageable);
+
+    Slice<Booking> findByProviderId(String providerId, Pageable pageable);
+
+    Slice<Booking> findByProviderIdAndIdGreaterThan(String providerId, String after, Pageable pageable);
 }
@@ -1,6 +1,8 @@
 package com.fixnear.repository;
 
 import com.fixnear.model.Provider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
@@ -8,12 +10,31 @@ import java.util.List;
 public interface ProviderRepository
         extends MongoRepository<Provider, String> {
 
-    List<Provider> findByServiceIgnoreCase(String service);
+    // serviceKey/locationKey hold the trimmed, lower-cased values; pass normalized input
+    List<Provider> findByServiceKey(String serviceKey);
     
     List<Provider> findByAvailableTrue();
     
-    List<Provider> findByLocationIgnoreCase(String location);
+    List<Provider> findByLocationKey(String locationKey);
     
-    List<Provider> findByServiceIgnoreCaseAndLocationIgnoreCase(String service, String location);
+    List<Provider> findByServiceKeyAndLocationKey(String serviceKey, String locationKey);
     java.util.Optional<Provider> findByUserId(String userId);
+
+    // Keyset pages ordered by _id: the first page, then everything after a cursor
+    Slice<Provider> findAllBy(Pageable pageable);
+
+    Slice<Provider> findByIdGreaterThan(String after, Pageable pageable);
+
+    Slice<Provider> findByServiceKey(String serviceKey, Pageable pageable);
+
+    Slice<Provider> findByServiceKeyAndIdGreaterThan(String serviceKey, String after, Pageable pageable);
+
+    Slice<Provider> findByLocationKey(String locationKey, Pageable pageable);
+
+    Slice<Provider> findByLocationKeyAndIdGreaterThan(String locationKey, String after, Pageable pageable);
+
+    Slice<Provider> findByServiceKeyAndLocationKey(String serviceKey, String locationKey, Pageable pageable);
+
+    Slice<Provider> findByServiceKeyAndLocationKeyAndIdGreaterThan(
+            String serviceKey, String locationKey, String after, Pageable pageable);
 }
@@ -1,8 +1,12 @@
 package com.fixnear.repository;
 
 import com.fixnear.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository
@@ -10,4 +14,12 @@ public interface UserRepository
 
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query(value = "{ 'enabled': false }", fields = "{ '_id': 1 }")
+    List<User> findByEnabledFalse();
+
+    // Keyset pages ordered by _id: the first page, then everything after a cursor
+    Slice<User> findAllBy(Pageable pageable);
+
+    Slice<User> findByIdGreaterThan(String after, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package com.fixnear.repository.reactive;
+
+import com.fixnear.model.Booking;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+// Non-blocking counterpart of BookingRepository, only created under the "reactive" profile
+public interface ReactiveBookingRepository extends ReactiveMongoRepository<Booking, String> {
+    Flux<Booking> findByUserId(String userId);
+
+    Flux<Booking> findByProviderId(String providerId);
+
+    Flux<Booking> findByStatus(String status);
+}
@@ -0,0 +1,22 @@
+package com.fixnear.repository.reactive;
+
+import com.fixnear.model.Provider;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of ProviderRepository, only created under the "reactive" profile
+public interface ReactiveProviderRepository
+        extends ReactiveMongoRepository<Provider, String> {
+
+    // serviceKey/locationKey hold the trimmed, lower-cased values; pass normalized input
+    Flux<Provider> findByServiceKey(String serviceKey);
+
+    Flux<Provider> findByAvailableTrue();
+
+    Flux<Provider> findByLocationKey(String locationKey);
+
+    Flux<Provider> findByServiceKeyAndLocationKey(String serviceKey, String locationKey);
+
+    Mono<Provider> findByUserId(String userId);
+}
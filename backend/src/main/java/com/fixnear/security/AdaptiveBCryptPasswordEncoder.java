@@ -0,0 +1,70 @@
+package com.fixnear.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt with the cost factor picked at startup: the highest cost in [minCost, maxCost] whose
+ * hash still fits the target latency on this machine. Existing hashes verify at whatever cost
+ * they were made with, and upgradeEncoding reports those below the current cost so they can
+ * be re-hashed on the next successful login.
+ */
+public class AdaptiveBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_PREFIX = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final int cost;
+    private final BCryptPasswordEncoder delegate;
+
+    public AdaptiveBCryptPasswordEncoder(long targetMs, int minCost, int maxCost) {
+        this.cost = calibrate(targetMs, minCost, maxCost);
+        this.delegate = new BCryptPasswordEncoder(cost);
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < cost;
+    }
+
+    // Each cost step doubles the work, so stop at the first step whose estimate overshoots
+    private static int calibrate(long targetMs, int minCost, int maxCost) {
+        new BCryptPasswordEncoder(minCost).encode(CALIBRATION_PASSWORD); // warm up
+        long start = System.nanoTime();
+        new BCryptPasswordEncoder(minCost).encode(CALIBRATION_PASSWORD);
+        double elapsedMs = (System.nanoTime() - start) / 1e6;
+
+        int chosen = minCost;
+        while (chosen < maxCost && elapsedMs * 2 <= targetMs) {
+            chosen++;
+            elapsedMs *= 2;
+        }
+        log.info("BCrypt cost {} (~{} ms per hash, target {} ms)", chosen, Math.round(elapsedMs), targetMs);
+        return chosen;
+    }
+}
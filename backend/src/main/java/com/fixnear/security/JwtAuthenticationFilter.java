@@ -1,29 +1,44 @@
 package com.fixnear.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final RevokedUserCache revokedUserCache;
+
+    // "stateless" trusts the signed uid/roles claims; "lookup" loads the user from Mongo
+    @Value("${jwt.auth-mode:stateless}")
+    private String authMode;
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil,
-                                   UserDetailsService userDetailsService) {
+                                   UserDetailsService userDetailsService,
+                                   RevokedUserCache revokedUserCache) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.revokedUserCache = revokedUserCache;
     }
 
     @Override
@@ -35,32 +50,69 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String header = request.getHeader("Authorization");
 
-        if (header != null && header.startsWith("Bearer ")) {
+        if (header != null && header.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             String token = header.substring(7);
-            String email = jwtUtil.extractUsername(token);
 
-            if (email != null &&
-                SecurityContextHolder.getContext().getAuthentication() == null) {
+            Claims claims;
+            try {
+                claims = jwtUtil.extractAllClaims(token);
+            } catch (JwtException | IllegalArgumentException e) {
+                // Invalid or expired token: continue unauthenticated
+                filterChain.doFilter(request, response);
+                return;
+            }
 
-                UserDetails userDetails =
-                        userDetailsService.loadUserByUsername(email);
+            UserDetails userDetails = "lookup".equalsIgnoreCase(authMode)
+                    ? loadUser(claims)
+                    : userFromClaims(claims);
 
-                if (jwtUtil.isTokenValid(token, userDetails)) {
-                    UsernamePasswordAuthenticationToken auth =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails,
-                                    null,
-                                    userDetails.getAuthorities()
-                            );
-                    auth.setDetails(
-                            new WebAuthenticationDetailsSource()
-                                    .buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext()
-                            .setAuthentication(auth);
-                }
+            if (userDetails != null) {
+                UsernamePasswordAuthenticationToken auth =
+                        new UsernamePasswordAuthenticationToken(
+                                userDetails,
+                                null,
+                                userDetails.getAuthorities()
+                        );
+                auth.setDetails(
+                        new WebAuthenticationDetailsSource()
+                                .buildDetails(request)
+                );
+                SecurityContextHolder.getContext()
+                        .setAuthentication(auth);
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails userFromClaims(Claims claims) {
+        String userId = claims.get(JwtUtil.CLAIM_USER_ID, String.class);
+        List<?> roles = claims.get(JwtUtil.CLAIM_ROLES, List.class);
+
+        // Tokens issued before roles were signed in still need the database
+        if (userId == null || roles == null) {
+            return loadUser(claims);
+        }
+        if (revokedUserCache.isRevoked(userId)) {
+            return null;
+        }
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(roles.stream()
+                        .map(r -> new SimpleGrantedAuthority("ROLE_" + r))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private UserDetails loadUser(Claims claims) {
+        String email = claims.getSubject();
+        if (email == null) {
+            return null;
+        }
+        try {
+            return userDetailsService.loadUserByUsername(email);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
 }
@@ -1,41 +1,115 @@
 package com.fixnear.security;
 
+import com.fixnear.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    private final long expiration;
 
-    private SecretKey getSigningKey() {
-    System.out.println("JWT SECRET LENGTH = " + secret.length());
-    return Keys.hmacShaKeyFor(
-            secret.getBytes(java.nio.charset.StandardCharsets.UTF_8)
-    );
-}
+    // Both are immutable and thread-safe, so they are built once instead of per call
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    private final VerifiedTokenCache verifiedTokens;
+
+    private final Timer signTimer;
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
 
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expiration,
+                   @Value("${jwt.verified-cache.size:10000}") int verifiedCacheSize,
+                   MeterRegistry meterRegistry) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
+
+        this.signTimer = timer(meterRegistry, "sign", "issued");
+        this.cachedTimer = timer(meterRegistry, "verify", "cached");
+        this.verifiedTimer = timer(meterRegistry, "verify", "verified");
+        this.rejectedTimer = timer(meterRegistry, "verify", "rejected");
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation, String result) {
+        return Timer.builder("fixnear.jwt.duration")
+                .tag("operation", operation)
+                .tag("result", result)
+                .description("Time spent signing or parsing and verifying a JWT")
+                .register(meterRegistry);
+    }
 
     public String generateToken(String email) {
-        return Jwts.builder()
+        return signTimer.record(() -> Jwts.builder()
                 .setSubject(email)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact());
+    }
+
+    // Carries the user id and roles so requests can be authenticated from the token alone
+    public String generateToken(User user) {
+        return signTimer.record(() -> Jwts.builder()
+                .setSubject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLES, user.getRoles() == null ? List.of() : user.getRoles())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact());
+    }
+
+    /**
+     * Verifies signature and expiry with a single parse and returns the claims; throws
+     * JwtException when the token is not valid. Recently verified tokens are answered
+     * from a small LRU until they expire.
+     */
+    public Claims extractAllClaims(String token) {
+        long start = System.nanoTime();
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (RuntimeException e) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        verifiedTokens.put(token, claims);
+        verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return claims;
     }
 
     public String extractUsername(String token) {
@@ -43,22 +117,77 @@ public class JwtUtil {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        return extractUsername(token).equals(userDetails.getUsername())
-                && !isTokenExpired(token);
+        try {
+            return extractUsername(token).equals(userDetails.getUsername());
+        } catch (ExpiredJwtException e) {
+            return false;
+        }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration)
-                .before(new Date());
+    private <T> T extractClaim(String token, Function<Claims, T> resolver) {
+        return resolver.apply(extractAllClaims(token));
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        return resolver.apply(
-                Jwts.parserBuilder()
-                        .setSigningKey(getSigningKey())
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody()
-        );
+    /**
+     * LRU of verified tokens keyed by their signature segment. The full token is compared
+     * on lookup, and an entry is only served until the token's own expiry.
+     */
+    static final class VerifiedTokenCache {
+
+        private final int capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entry> entries;
+
+        VerifiedTokenCache(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > VerifiedTokenCache.this.capacity;
+                }
+            };
+        }
+
+        Claims get(String token) {
+            if (capacity <= 0) {
+                return null;
+            }
+            String signature = signatureOf(token);
+            lock.lock();
+            try {
+                Entry entry = entries.get(signature);
+                if (entry == null || !entry.token.equals(token)) {
+                    return null;
+                }
+                if (entry.expiresAt <= System.currentTimeMillis()) {
+                    entries.remove(signature);
+                    return null;
+                }
+                return entry.claims;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(String token, Claims claims) {
+            if (capacity <= 0 || claims.getExpiration() == null) {
+                return;
+            }
+            Entry entry = new Entry(token, claims, claims.getExpiration().getTime());
+            lock.lock();
+            try {
+                entries.put(signatureOf(token), entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static String signatureOf(String token) {
+            int dot = token.lastIndexOf('.');
+            return dot < 0 ? token : token.substring(dot + 1);
+        }
+
+        private record Entry(String token, Claims claims, long expiresAt) {
+        }
     }
 }
@@ -0,0 +1,125 @@
+package com.fixnear.security;
+
+import com.fixnear.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing on a small, fixed pool with a bounded queue so a burst of logins can
+ * only use the cores given to it. When the queue is full, callers get a
+ * ServiceOverloadedException carrying a Retry-After estimate instead of waiting.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder encoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${fixnear.hashing.threads:0}") int threads,
+                          @Value("${fixnear.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${fixnear.hashing.timeout-ms:5000}") long timeoutMs) {
+        this.encoder = encoder;
+        this.timeoutMs = timeoutMs;
+        // Default leaves half the cores to the rest of the application
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger workerId = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + workerId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("fixnear.hashing.duration").tag("operation", "encode")
+                .description("Time spent hashing a password").register(meterRegistry);
+        this.matchesTimer = Timer.builder("fixnear.hashing.duration").tag("operation", "matches")
+                .description("Time spent verifying a password").register(meterRegistry);
+        this.waitTimer = Timer.builder("fixnear.hashing.queue.wait")
+                .description("Time a hashing task waited for a worker").register(meterRegistry);
+        this.rejected = Counter.builder("fixnear.hashing.rejected")
+                .description("Hashing requests turned away because the queue was full").register(meterRegistry);
+        Gauge.builder("fixnear.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Hashing tasks waiting for a worker").register(meterRegistry);
+        Gauge.builder("fixnear.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing workers currently busy").register(meterRegistry);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.record(() -> encoder.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.record(() -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // Stored hash made with a weaker cost than the encoder now uses
+    public boolean needsRehash(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many sign-in requests, please retry shortly", retryAfterSeconds());
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceOverloadedException("Sign-in is taking too long, please retry shortly", retryAfterSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Time for the current backlog to drain at the observed mean hash time
+    private long retryAfterSeconds() {
+        double meanMs = Math.max(encodeTimer.mean(TimeUnit.MILLISECONDS), matchesTimer.mean(TimeUnit.MILLISECONDS));
+        double drainMs = (executor.getQueue().size() + executor.getActiveCount()) * meanMs / executor.getMaximumPoolSize();
+        return Math.max(1, (long) Math.ceil(drainMs / 1000));
+    }
+}
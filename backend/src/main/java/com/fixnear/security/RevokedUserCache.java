@@ -0,0 +1,95 @@
+package com.fixnear.security;
+
+import com.fixnear.model.User;
+import com.fixnear.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users whose still-unexpired tokens must be rejected: disabled accounts, and deleted
+ * accounts until their last token could have expired. Holds only those ids, so the
+ * stateless filter can check a token without reading the users collection.
+ */
+@Component
+public class RevokedUserCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedUserCache.class);
+
+    // Disabled users stay revoked until re-enabled
+    private static final long UNTIL_ENABLED = Long.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final Map<String, Long> revokedUntil = new ConcurrentHashMap<>();
+    // System.nanoTime() of the last change made through this instance, per user
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+
+    @Value("${jwt.expiration}")
+    private long expiration;
+
+    public RevokedUserCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public boolean isRevoked(String userId) {
+        Long until = revokedUntil.get(userId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    public void userStatusChanged(String userId, boolean enabled) {
+        changedAt.put(userId, System.nanoTime());
+        if (enabled) {
+            revokedUntil.remove(userId);
+        } else {
+            revokedUntil.put(userId, UNTIL_ENABLED);
+        }
+    }
+
+    public void userDeleted(String userId) {
+        changedAt.put(userId, System.nanoTime());
+        revokedUntil.put(userId, System.currentTimeMillis() + expiration);
+    }
+
+    // Picks up accounts disabled or re-enabled through other instances, and drops
+    // deleted-user entries whose tokens have all expired. Users changed here after the
+    // snapshot query started keep their local state: the snapshot may predate the change
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${jwt.revocation.refresh-ms:60000}",
+            fixedDelayString = "${jwt.revocation.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            long started = System.nanoTime();
+            Set<String> disabled = new HashSet<>();
+            for (User user : userRepository.findByEnabledFalse()) {
+                disabled.add(user.getId());
+            }
+            long now = System.currentTimeMillis();
+            revokedUntil.entrySet().removeIf(entry -> entry.getValue() == UNTIL_ENABLED
+                    ? !disabled.contains(entry.getKey()) && !changedSince(entry.getKey(), started)
+                    : entry.getValue() <= now);
+            disabled.forEach(id -> {
+                if (!changedSince(id, started)) {
+                    revokedUntil.put(id, UNTIL_ENABLED);
+                }
+            });
+            // Older changes are in the snapshot by now
+            changedAt.values().removeIf(at -> at - started < 0);
+        } catch (Exception e) {
+            log.warn("Could not refresh revoked users: {}", e.getMessage());
+        }
+    }
+
+    private boolean changedSince(String userId, long started) {
+        Long at = changedAt.get(userId);
+        return at != null && at - started >= 0;
+    }
+}
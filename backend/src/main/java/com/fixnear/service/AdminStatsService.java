@@ -0,0 +1,157 @@
+package com.fixnear.service;
+
+import com.fixnear.model.Booking;
+import com.fixnear.model.Provider;
+import com.fixnear.model.User;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin dashboard figures computed with server-side aggregations, so only counts,
+ * averages and the per-service breakdown come back from Mongo.
+ */
+@Service
+public class AdminStatsService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public AdminStatsService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Map<String, Object> getDashboard() {
+        Map<String, Object> dashboard = new HashMap<>();
+
+        Map<String, Long> bookingsByStatus = bookingCountsByStatus();
+        ProviderTotals providers = providerTotals();
+
+        dashboard.put("totalUsers", mongoTemplate.count(new Query(), User.class));
+        dashboard.put("totalProviders", providers.total());
+        dashboard.put("totalBookings", sum(bookingsByStatus));
+        dashboard.put("completedBookings", bookingsByStatus.getOrDefault("COMPLETED", 0L));
+        dashboard.put("pendingBookings", bookingsByStatus.getOrDefault("PENDING", 0L));
+        dashboard.put("confirmedBookings", bookingsByStatus.getOrDefault("CONFIRMED", 0L));
+        dashboard.put("averageProviderRating", providers.averageRating());
+        dashboard.put("activeProviders", providers.available());
+        return dashboard;
+    }
+
+    public Map<String, Object> getAnalytics() {
+        Map<String, Object> analytics = new HashMap<>();
+
+        UserTotals users = userTotals();
+        ProviderTotals providers = providerTotals();
+        Map<String, Long> bookingsByStatus = bookingCountsByStatus();
+
+        // User statistics
+        analytics.put("totalUsers", users.total());
+        analytics.put("enabledUsers", users.enabled());
+        analytics.put("disabledUsers", users.total() - users.enabled());
+
+        // Provider statistics
+        analytics.put("totalProviders", providers.total());
+        analytics.put("availableProviders", providers.available());
+
+        // Booking statistics
+        analytics.put("totalBookings", sum(bookingsByStatus));
+        analytics.put("completedBookings", bookingsByStatus.getOrDefault("COMPLETED", 0L));
+        analytics.put("cancelledBookings", bookingsByStatus.getOrDefault("CANCELLED", 0L));
+
+        // Service statistics
+        analytics.put("serviceBreakdown", providers.serviceBreakdown());
+        return analytics;
+    }
+
+    public Map<String, Long> bookingCountsByStatus() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("status").count().as("count")
+        );
+        Map<String, Long> counts = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Booking.class, Document.class)) {
+            Object status = row.get("_id");
+            counts.merge(status == null ? "UNKNOWN" : status.toString(), asLong(row.get("count")), Long::sum);
+        }
+        return counts;
+    }
+
+    public ProviderTotals providerTotals() {
+        // Missing fields count the way the Java defaults read them: available=false, rating=0
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.facet(
+                        Aggregation.group()
+                                .count().as("total")
+                                .sum(ConditionalOperators.when(Criteria.where("available").is(true))
+                                        .then(1).otherwise(0)).as("available")
+                                .sum(ConditionalOperators.ifNull("rating").then(0)).as("ratingSum")
+                ).as("totals")
+                        .and(Aggregation.group("service").count().as("count")).as("services")
+        );
+        Document result = mongoTemplate.aggregate(aggregation, Provider.class, Document.class)
+                .getUniqueMappedResult();
+
+        long total = 0;
+        long available = 0;
+        double ratingSum = 0;
+        Map<String, Long> serviceBreakdown = new HashMap<>();
+        if (result != null) {
+            List<Document> totals = result.getList("totals", Document.class);
+            if (totals != null && !totals.isEmpty()) {
+                Document row = totals.get(0);
+                total = asLong(row.get("total"));
+                available = asLong(row.get("available"));
+                ratingSum = ((Number) row.get("ratingSum")).doubleValue();
+            }
+            List<Document> services = result.getList("services", Document.class);
+            if (services != null) {
+                for (Document row : services) {
+                    if (row.get("_id") != null) {
+                        serviceBreakdown.put(row.get("_id").toString(), asLong(row.get("count")));
+                    }
+                }
+            }
+        }
+        return new ProviderTotals(total, available, ratingSum, serviceBreakdown);
+    }
+
+    public UserTotals userTotals() {
+        // Users without an enabled field load as enabled
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group()
+                        .count().as("total")
+                        .sum(ConditionalOperators.when(Criteria.where("enabled").is(false))
+                                .then(0).otherwise(1)).as("enabled")
+        );
+        Document row = mongoTemplate.aggregate(aggregation, User.class, Document.class)
+                .getUniqueMappedResult();
+        if (row == null) {
+            return new UserTotals(0, 0);
+        }
+        return new UserTotals(asLong(row.get("total")), asLong(row.get("enabled")));
+    }
+
+    private static long sum(Map<String, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static long asLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    public record ProviderTotals(long total, long available, double ratingSum, Map<String, Long> serviceBreakdown) {
+        public double averageRating() {
+            return total == 0 ? 0.0 : ratingSum / total;
+        }
+    }
+
+    public record UserTotals(long total, long enabled) {
+    }
+}
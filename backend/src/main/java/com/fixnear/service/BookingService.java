@@ -1,24 +1,108 @@
 package com.fixnear.service;
 
+import com.fixnear.dto.CursorPage;
+import com.fixnear.exception.SlotUnavailableException;
 import com.fixnear.model.Booking;
+import com.fixnear.model.BookingEvent;
 import com.fixnear.repository.BookingRepository;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class BookingService {
 
     private final BookingRepository bookingRepository;
+    private final StatsService statsService;
+    private final SlotEngine slotEngine;
+    private final SlotClaimService slotClaimService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookingService(BookingRepository bookingRepository) {
+    public BookingService(BookingRepository bookingRepository,
+                          StatsService statsService,
+                          SlotEngine slotEngine,
+                          SlotClaimService slotClaimService,
+                          ApplicationEventPublisher eventPublisher) {
         this.bookingRepository = bookingRepository;
+        this.statsService = statsService;
+        this.slotEngine = slotEngine;
+        this.slotClaimService = slotClaimService;
+        this.eventPublisher = eventPublisher;
     }
 
+    // Throws SlotUnavailableException when the provider is closed or already booked then
     @SuppressWarnings("null")
     public Booking createBooking(Booking booking) {
-        return bookingRepository.save(booking);
+        boolean isNew = booking.getId() == null;
+        boolean reserved = false;
+        if (isNew && SlotEngine.holdsSlot(booking)) {
+            // The slot table tracks bookings by id, so assign it up front
+            booking.setId(new ObjectId().toHexString());
+            reserve(booking);
+            reserved = true;
+        }
+        Booking saved;
+        try {
+            saved = bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            if (reserved) {
+                unreserve(booking.getProviderId(), booking.getId());
+            }
+            throw e;
+        }
+        if (isNew) {
+            statsService.bookingCreated(saved.getStatus());
+        }
+        eventPublisher.publishEvent(new BookingEvent(isNew ? BookingEvent.CREATED : BookingEvent.UPDATED, saved));
+        return saved;
+    }
+
+    /**
+     * Claims the slots of bulk-imported bookings before they are written; returns the ids
+     * of those that conflict with an existing booking or with each other. Stored bookings
+     * are checked directly as well as through their claims, since bookings made before
+     * claims existed, and admin edits that could not reserve, have none.
+     */
+    public Set<String> claimImportedSlots(List<Booking> bookings) {
+        List<Booking> holding = bookings.stream().filter(SlotEngine::holdsSlot).toList();
+        Set<String> stored = slotEngine.storedSlotIds(holding);
+        Set<String> conflicts = new HashSet<>();
+        List<Booking> free = new ArrayList<>(holding.size());
+        for (Booking booking : holding) {
+            if (slotEngine.slotIds(booking).stream().anyMatch(stored::contains)) {
+                conflicts.add(booking.getId());
+            } else {
+                free.add(booking);
+            }
+        }
+        conflicts.addAll(slotClaimService.claimAll(free));
+        return conflicts;
+    }
+
+    // Imported bookings that did not make it into the collection give their slots back
+    public void releaseImportedSlots(Collection<String> bookingIds) {
+        slotClaimService.releaseAll(bookingIds);
+    }
+
+    // Counters and provider schedules for bookings that were bulk-inserted. No booking
+    // events are published; dashboards pick imported bookings up on their next load.
+    public void bookingsImported(List<Booking> bookings) {
+        Set<String> providers = new HashSet<>();
+        for (Booking booking : bookings) {
+            statsService.bookingCreated(booking.getStatus());
+            providers.add(booking.getProviderId());
+        }
+        providers.forEach(slotEngine::invalidate);
     }
 
     @SuppressWarnings("null")
@@ -26,37 +110,124 @@ public class BookingService {
         return bookingRepository.findById(id);
     }
 
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAll();
+    public List<Booking> getBookingsByStatus(String status) {
+        return bookingRepository.findByStatus(status);
     }
 
-    public List<Booking> getBookingsByUserId(String userId) {
-        return bookingRepository.findByUserId(userId);
+    // Keyset page of a user's, a provider's or all bookings, ordered by _id
+    public CursorPage<Booking> getBookingsPage(String userId, String providerId, String after, Integer limit) {
+        Pageable page = CursorPage.request(limit);
+        boolean first = after == null || after.isEmpty();
+        Slice<Booking> slice;
+        if (userId != null && !userId.isEmpty()) {
+            slice = first ? bookingRepository.findByUserId(userId, page)
+                    : bookingRepository.findByUserIdAndIdGreaterThan(userId, after, page);
+        } else if (providerId != null && !providerId.isEmpty()) {
+            slice = first ? bookingRepository.findByProviderId(providerId, page)
+                    : bookingRepository.findByProviderIdAndIdGreaterThan(providerId, after, page);
+        } else {
+            slice = first ? bookingRepository.findAllBy(page)
+                    : bookingRepository.findByIdGreaterThan(after, page);
+        }
+        return CursorPage.of(slice, Booking::getId);
     }
 
-    public List<Booking> getBookingsByProviderId(String providerId) {
-        return bookingRepository.findByProviderId(providerId);
+    // Status changes go through here so the previous status is known to the counters
+    @SuppressWarnings("null")
+    public Booking updateBookingStatus(Booking booking, String status) {
+        String previous = booking.getStatus();
+        boolean heldSlot = SlotEngine.holdsSlot(booking);
+        booking.setStatus(status);
+        if (!heldSlot && SlotEngine.holdsSlot(booking)) {
+            // Reopening a cancelled or rejected booking needs its slot back
+            try {
+                reserve(booking);
+            } catch (SlotUnavailableException e) {
+                booking.setStatus(previous);
+                throw e;
+            }
+        }
+        booking.setUpdatedAt(new Date());
+        Booking saved = bookingRepository.save(booking);
+        if (heldSlot && !SlotEngine.holdsSlot(saved)) {
+            unreserve(saved.getProviderId(), saved.getId());
+        }
+        statsService.bookingStatusChanged(previous, status);
+        eventPublisher.publishEvent(new BookingEvent(BookingEvent.STATUS_CHANGED, saved));
+        return saved;
     }
 
-    public List<Booking> getBookingsByStatus(String status) {
-        return bookingRepository.findByStatus(status);
+    @SuppressWarnings("null")
+    public Booking addReview(Booking booking, double rating, String review) {
+        String previous = booking.getStatus();
+        booking.setRating(rating);
+        booking.setReview(review);
+        booking.setStatus("COMPLETED");
+        booking.setUpdatedAt(new Date());
+        Booking saved = bookingRepository.save(booking);
+        statsService.bookingStatusChanged(previous, "COMPLETED");
+        eventPublisher.publishEvent(new BookingEvent(BookingEvent.REVIEWED, saved));
+        return saved;
     }
 
     @SuppressWarnings("null")
     public Booking updateBooking(String id, Booking updatedBooking) {
         return bookingRepository.findById(id)
                 .map(booking -> {
+                    String previous = booking.getStatus();
+                    String previousProviderId = booking.getProviderId();
+                    boolean heldSlot = SlotEngine.holdsSlot(booking);
                     booking.setUserId(updatedBooking.getUserId());
                     booking.setProviderId(updatedBooking.getProviderId());
                     booking.setService(updatedBooking.getService());
                     booking.setStatus(updatedBooking.getStatus());
-                    return bookingRepository.save(booking);
+                    if (heldSlot) {
+                        unreserve(previousProviderId, booking.getId());
+                    }
+                    if (SlotEngine.holdsSlot(booking)
+                            && !(slotEngine.tryReserve(booking) && slotClaimService.claim(booking))) {
+                        // Admin edits are not refused; the schedule reloads from Mongo on next use
+                        slotEngine.invalidate(booking.getProviderId());
+                    }
+                    booking.setUpdatedAt(new Date());
+                    Booking saved = bookingRepository.save(booking);
+                    statsService.bookingStatusChanged(previous, saved.getStatus());
+                    if (previousProviderId != null && !previousProviderId.equals(saved.getProviderId())) {
+                        // Reassigned: the old provider's dashboard loses the booking
+                        BookingEvent removed = new BookingEvent(BookingEvent.CANCELLED, saved);
+                        removed.setProviderId(previousProviderId);
+                        eventPublisher.publishEvent(removed);
+                    }
+                    eventPublisher.publishEvent(new BookingEvent(BookingEvent.UPDATED, saved));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
     }
 
     @SuppressWarnings("null")
     public void cancelBooking(String id) {
-        bookingRepository.deleteById(id);
+        bookingRepository.findById(id).ifPresent(booking -> {
+            bookingRepository.deleteById(id);
+            unreserve(booking.getProviderId(), booking.getId());
+            statsService.bookingDeleted(booking.getStatus());
+            eventPublisher.publishEvent(new BookingEvent(BookingEvent.CANCELLED, booking));
+        });
+    }
+
+    // The local schedule turns away most conflicts without a write; the slot claim insert
+    // is what decides between concurrent requests, including ones on other instances
+    private void reserve(Booking booking) {
+        if (!slotEngine.tryReserve(booking)) {
+            throw new SlotUnavailableException("Provider is not available at " + booking.getBookingDate());
+        }
+        if (!slotClaimService.claim(booking)) {
+            slotEngine.release(booking.getProviderId(), booking.getId());
+            throw new SlotUnavailableException("Provider is already booked at " + booking.getBookingDate());
+        }
+    }
+
+    private void unreserve(String providerId, String bookingId) {
+        slotEngine.release(providerId, bookingId);
+        slotClaimService.release(bookingId);
     }
 }
@@ -0,0 +1,257 @@
+package com.fixnear.service;
+
+import com.fixnear.model.BookingEvent;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes booking changes to provider dashboards over Server-Sent Events. BookingService
+ * publishes a BookingEvent on every write; this instance forwards it to the dashboards
+ * subscribed to that provider. With change streams enabled the event is also written to
+ * booking_events, and every instance relays the ones made elsewhere to its own subscribers
+ * (change streams need a replica set).
+ *
+ * Each dashboard has its own bounded queue, drained in order on a virtual thread, so a
+ * client that stops reading blocks only its own writes. One that falls a whole queue behind
+ * is completed and reconnects to a fresh stream.
+ */
+@Service
+public class BookingStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingStreamService.class);
+
+    private static final long RECONNECT_MS = 3000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final long timeoutMs;
+    private final int queueSize;
+    private final boolean changeStreams;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Blocking servlet writes park a virtual thread per draining dashboard, never a request thread
+    private final ExecutorService sender = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("booking-stream-sender-", 0).factory());
+    private volatile boolean running = true;
+
+    public BookingStreamService(MongoTemplate mongoTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${fixnear.bookings.stream.timeout-ms:1800000}") long timeoutMs,
+                                @Value("${fixnear.bookings.stream.queue-size:64}") int queueSize,
+                                @Value("${fixnear.bookings.stream.change-streams:false}") boolean changeStreams) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeoutMs = timeoutMs;
+        this.queueSize = Math.max(1, queueSize);
+        this.changeStreams = changeStreams;
+        Gauge.builder("fixnear.bookings.stream.subscribers", subscribers,
+                        map -> map.values().stream().mapToInt(Set::size).sum())
+                .description("Open booking event streams on this instance").register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String providerId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(providerId, emitter, queueSize);
+        subscribers.computeIfAbsent(providerId, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        // Completing ends the stream normally; left alone the timeout surfaces as an
+        // AsyncRequestTimeoutException on a response that is already committed
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> unsubscribe(subscriber));
+        // Sent before the handler returns; the emitter buffers it until the response is open
+        enqueue(subscriber, SseEmitter.event()
+                .name("connected")
+                .reconnectTime(RECONNECT_MS)
+                .data(Map.of("providerId", providerId), MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        if (event.getOrigin() != null) {
+            return; // already relayed
+        }
+        event.setOrigin(instanceId);
+        deliver(event);
+        if (changeStreams) {
+            try {
+                mongoTemplate.insert(event);
+            } catch (Exception e) {
+                log.warn("Booking event for {} not shared with other instances: {}", event.getBookingId(), e.getMessage());
+            }
+        }
+    }
+
+    // Comment lines keep idle connections open through proxies and reveal dead clients
+    @Scheduled(fixedDelayString = "${fixnear.bookings.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.values().forEach(group -> group.forEach(
+                subscriber -> enqueue(subscriber, SseEmitter.event().comment("keep-alive"))));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startChangeStream() {
+        if (changeStreams) {
+            Thread.ofPlatform().daemon().name("booking-change-stream").start(this::watch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        sender.shutdownNow();
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private void deliver(BookingEvent event) {
+        Set<Subscriber> group = subscribers.get(event.getProviderId());
+        if (group == null || group.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : group) {
+            enqueue(subscriber, SseEmitter.event()
+                    .name(event.getType())
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.queue.offer(event)) {
+            // A whole queue behind: drop this client rather than buffer for it without limit
+            log.debug("Booking stream for provider {} fell behind; closing it", subscriber.providerId);
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    // At most one drain per subscriber runs at a time, which keeps its events in order
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away or the emitter already completed; the container cleans up
+                    unsubscribe(subscriber);
+                    subscriber.queue.clear();
+                    subscriber.draining.set(false);
+                    return;
+                }
+            }
+            subscriber.draining.set(false);
+            // An event offered after the last poll but before the flag was cleared is ours to send
+            if (subscriber.queue.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.providerId, (key, group) -> {
+            group.remove(subscriber);
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    // Tails inserts into booking_events, resuming after the last seen change on errors
+    private void watch() {
+        String collection = mongoTemplate.getCollectionName(BookingEvent.class);
+        BsonDocument resumeToken = null;
+        long backoffMs = 1000;
+        while (running) {
+            try {
+                ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection)
+                        .watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))))
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (resumeToken != null) {
+                    stream = stream.resumeAfter(resumeToken);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                    log.info("Relaying booking events from other instances through a change stream");
+                    while (running) {
+                        ChangeStreamDocument<Document> change = cursor.tryNext();
+                        if (change == null) {
+                            continue;
+                        }
+                        resumeToken = change.getResumeToken();
+                        backoffMs = 1000;
+                        BookingEvent event = mongoTemplate.getConverter().read(BookingEvent.class, change.getFullDocument());
+                        if (!instanceId.equals(event.getOrigin())) {
+                            deliver(event);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                if (e instanceof MongoCommandException command && command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    resumeToken = null; // the oplog moved past it; continue from now
+                }
+                log.warn("Booking change stream stopped, retrying in {} ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private static final class Subscriber {
+        final String providerId;
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(String providerId, SseEmitter emitter, int queueSize) {
+            this.providerId = providerId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
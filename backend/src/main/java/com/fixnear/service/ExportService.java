@@ -0,0 +1,183 @@
+package com.fixnear.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixnear.model.Booking;
+import com.fixnear.model.Provider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streams bookings and providers from a Mongo cursor straight into an output stream as
+ * NDJSON or CSV. Documents are written one at a time, so heap use does not grow with
+ * the size of the collection.
+ */
+@Service
+public class ExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    private static final List<Column<Booking>> BOOKING_COLUMNS = List.of(
+            new Column<>("id", Booking::getId),
+            new Column<>("userId", Booking::getUserId),
+            new Column<>("userName", Booking::getUserName),
+            new Column<>("providerId", Booking::getProviderId),
+            new Column<>("providerName", Booking::getProviderName),
+            new Column<>("service", Booking::getService),
+            new Column<>("location", Booking::getLocation),
+            new Column<>("price", Booking::getPrice),
+            new Column<>("status", Booking::getStatus),
+            new Column<>("description", Booking::getDescription),
+            new Column<>("bookingDate", b -> isoDate(b.getBookingDate())),
+            new Column<>("createdAt", b -> isoDate(b.getCreatedAt())),
+            new Column<>("updatedAt", b -> isoDate(b.getUpdatedAt())),
+            new Column<>("rating", Booking::getRating),
+            new Column<>("review", Booking::getReview)
+    );
+
+    private static final List<Column<Provider>> PROVIDER_COLUMNS = List.of(
+            new Column<>("id", Provider::getId),
+            new Column<>("userId", Provider::getUserId),
+            new Column<>("name", Provider::getName),
+            new Column<>("service", Provider::getService),
+            new Column<>("location", Provider::getLocation),
+            new Column<>("latitude", p -> p.getCoordinates() == null ? null : p.getCoordinates().getY()),
+            new Column<>("longitude", p -> p.getCoordinates() == null ? null : p.getCoordinates().getX()),
+            new Column<>("available", Provider::isAvailable),
+            new Column<>("workingHours", Provider::getWorkingHours),
+            new Column<>("rating", Provider::getRating),
+            new Column<>("price", Provider::getPrice)
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public static boolean isSupportedFormat(String format) {
+        return NDJSON.equalsIgnoreCase(format) || CSV.equalsIgnoreCase(format);
+    }
+
+    // from is inclusive and to is exclusive, both on bookingDate
+    public void exportBookings(OutputStream out, String format, Date from, Date to, String status) throws IOException {
+        Query query = new Query();
+        if (from != null || to != null) {
+            Criteria bookingDate = Criteria.where("bookingDate");
+            if (from != null) {
+                bookingDate.gte(from);
+            }
+            if (to != null) {
+                bookingDate.lt(to);
+            }
+            query.addCriteria(bookingDate);
+        }
+        if (status != null && !status.isEmpty()) {
+            query.addCriteria(Criteria.where("status").is(status.toUpperCase(Locale.ROOT)));
+        }
+        export(out, format, query, Booking.class, BOOKING_COLUMNS);
+    }
+
+    public void exportProviders(OutputStream out, String format, String service, Boolean available) throws IOException {
+        Query query = new Query();
+        String serviceKey = ProviderSearchIndex.normalize(service);
+        if (serviceKey != null) {
+            query.addCriteria(Criteria.where("serviceKey").is(serviceKey));
+        }
+        if (available != null) {
+            query.addCriteria(Criteria.where("available").is(available));
+        }
+        export(out, format, query, Provider.class, PROVIDER_COLUMNS);
+    }
+
+    private <T> void export(OutputStream out, String format, Query query, Class<T> type,
+                            List<Column<T>> columns) throws IOException {
+        query.cursorBatchSize(CURSOR_BATCH_SIZE);
+        try (Stream<T> documents = mongoTemplate.stream(query, type)) {
+            if (CSV.equalsIgnoreCase(format)) {
+                writeCsv(out, documents, columns);
+            } else {
+                writeNdjson(out, documents);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> void writeNdjson(OutputStream out, Stream<T> documents) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        documents.forEach(document -> {
+            try {
+                objectMapper.writeValue(generator, document);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+
+    private <T> void writeCsv(OutputStream out, Stream<T> documents, List<Column<T>> columns) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvRow(writer, columns.stream().map(Column::name).toList());
+        documents.forEach(document -> {
+            try {
+                writeCsvRow(writer, columns.stream().map(c -> c.value().apply(document)).toList());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writer.write(csvEscape(value.toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks
+    private static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String isoDate(Date date) {
+        return date == null ? null : date.toInstant().toString();
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.fixnear.service;
+
+/**
+ * Integer geohash cells at precision 5 (13 longitude bits, 12 latitude bits), roughly
+ * 4.9 km x 4.9 km at the equator, plus the distance math used by the nearby search.
+ */
+final class GeoHashGrid {
+
+    static final int LAT_BITS = 12;
+    static final int LNG_BITS = 13;
+    static final int LAT_CELLS = 1 << LAT_BITS;
+    static final int LNG_CELLS = 1 << LNG_BITS;
+    static final double LAT_STEP = 180.0 / LAT_CELLS;
+    static final double LNG_STEP = 360.0 / LNG_CELLS;
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180.0;
+
+    private GeoHashGrid() {
+    }
+
+    static int latIndex(double lat) {
+        int idx = (int) Math.floor((lat + 90.0) / LAT_STEP);
+        return Math.max(0, Math.min(LAT_CELLS - 1, idx));
+    }
+
+    static int lngIndex(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180.0) / LNG_STEP), LNG_CELLS);
+    }
+
+    // Interleaves the bits the way geohash does, starting with longitude
+    static long cell(int latIdx, int lngIdx) {
+        long hash = 0;
+        for (int i = LNG_BITS - 1; i >= 0; i--) {
+            hash = (hash << 1) | ((lngIdx >>> i) & 1);
+            if (i > 0) {
+                hash = (hash << 1) | ((latIdx >>> (i - 1)) & 1);
+            }
+        }
+        return hash;
+    }
+
+    static long cell(double lat, double lng) {
+        return cell(latIndex(lat), lngIndex(lng));
+    }
+
+    static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,730 @@
+package com.fixnear.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixnear.model.Booking;
+import com.fixnear.model.Provider;
+import com.fixnear.model.User;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of providers and bookings from an NDJSON or CSV upload, in the columns
+ * {@link ExportService} writes. Records are validated as they are read and written in
+ * unordered bulk inserts of one batch at a time, so memory holds a single batch and a
+ * capped list of errors however large the upload is. Records longer than
+ * fixnear.import.max-record-size are skipped without being held and reported. A record
+ * that fails validation or its insert is reported by line and skipped; the rest of its
+ * batch still goes in.
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final Set<String> BOOKING_STATUSES =
+            Set.of("PENDING", "ACCEPTED", "REJECTED", "COMPLETED", "CANCELLED");
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProviderService providerService;
+    private final BookingService bookingService;
+    private final int defaultBatchSize;
+    private final int maxReportedErrors;
+    private final int maxRecordChars;
+
+    public ImportService(MongoTemplate mongoTemplate,
+                         ObjectMapper objectMapper,
+                         ProviderService providerService,
+                         BookingService bookingService,
+                         @Value("${fixnear.import.batch-size:1000}") int defaultBatchSize,
+                         @Value("${fixnear.import.max-reported-errors:1000}") int maxReportedErrors,
+                         @Value("${fixnear.import.max-record-size:64KB}") DataSize maxRecordSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.providerService = providerService;
+        this.bookingService = bookingService;
+        this.defaultBatchSize = defaultBatchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.maxRecordChars = (int) Math.min(Integer.MAX_VALUE - 8, maxRecordSize.toBytes());
+    }
+
+    public ImportResult importProviders(InputStream in, String format, Integer batchSize) throws IOException {
+        return run(in, format, batchSize, "providers", this::toProvider, this::writeProviders);
+    }
+
+    public ImportResult importBookings(InputStream in, String format, Integer batchSize) throws IOException {
+        return run(in, format, batchSize, "bookings", this::toBooking, this::writeBookings);
+    }
+
+    private <T> ImportResult run(InputStream in, String format, Integer requestedBatchSize, String kind,
+                                 Function<Map<String, String>, T> parse, BatchWriter<T> writer) throws IOException {
+        int batchSize = Math.max(1, Math.min(requestedBatchSize != null ? requestedBatchSize : defaultBatchSize,
+                MAX_BATCH_SIZE));
+        long started = System.nanoTime();
+        Report report = new Report(maxReportedErrors);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RecordReader records = ExportService.CSV.equalsIgnoreCase(format)
+                ? new CsvRecordReader(reader, maxRecordChars)
+                : new NdjsonRecordReader(reader, objectMapper, maxRecordChars);
+
+        List<Line<T>> batch = new ArrayList<>(batchSize);
+        Record record;
+        while ((record = records.next(report)) != null) {
+            report.received++;
+            try {
+                batch.add(new Line<>(record.line(), parse.apply(record.fields())));
+            } catch (IllegalArgumentException e) {
+                report.reject(record.line(), e.getMessage());
+                continue;
+            }
+            if (batch.size() == batchSize) {
+                writer.write(batch, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writer.write(batch, report);
+        }
+
+        // Lookup and insert failures are found a batch after the parse errors around them
+        report.errors.sort(Comparator.comparingLong(LineError::line));
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Imported {} of {} {} in {} ms ({} rejected)", report.imported, report.received, kind,
+                durationMs, report.rejected);
+        return new ImportResult(format.toLowerCase(Locale.ROOT), batchSize, report.received, report.imported,
+                report.rejected, durationMs, durationMs == 0 ? report.imported : report.imported * 1000 / durationMs,
+                report.errors, report.rejected > report.errors.size());
+    }
+
+    // ---- providers ----
+
+    private Provider toProvider(Map<String, String> fields) {
+        Provider provider = new Provider();
+        provider.setId(optionalId(fields.get("id")));
+        provider.setUserId(blankToNull(fields.get("userId")));
+        provider.setName(required(fields, "name"));
+        provider.setService(required(fields, "service"));
+        provider.setLocation(required(fields, "location"));
+        provider.setWorkingHours(blankToNull(fields.get("workingHours")));
+        provider.setAvailable(bool(fields.get("available"), true));
+        provider.setRating(range(fields, "rating", 0, 5));
+        provider.setPrice(range(fields, "price", 0, Double.MAX_VALUE));
+
+        Double latitude = number(fields, "latitude");
+        Double longitude = number(fields, "longitude");
+        if (latitude == null && longitude == null && fields.get("coordinates") != null) {
+            // NDJSON exports carry the GeoJSON point instead of the two CSV columns
+            JsonNode point = readJson(fields.get("coordinates")).path("coordinates");
+            if (point.size() == 2 && point.get(0).isNumber() && point.get(1).isNumber()) {
+                longitude = point.get(0).asDouble();
+                latitude = point.get(1).asDouble();
+            }
+        }
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("latitude and longitude go together");
+        }
+        if (latitude != null) {
+            if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+                throw new IllegalArgumentException("coordinates out of range");
+            }
+            provider.setCoordinates(new GeoJsonPoint(longitude, latitude));
+        }
+        provider.setUpdatedAt(new Date());
+        return provider;
+    }
+
+    private void writeProviders(List<Line<Provider>> batch, Report report) {
+        // A user has at most one provider profile (findByUserId returns a single one), so each
+        // userId must name an existing user with no profile yet, in the collection or earlier
+        // in this batch; one lookup per collection covers the whole batch
+        Set<String> userIds = new HashSet<>();
+        for (Line<Provider> line : batch) {
+            if (line.value().getUserId() != null) {
+                userIds.add(line.value().getUserId());
+            }
+        }
+        Set<String> users = Set.of();
+        Set<String> taken = Set.of();
+        if (!userIds.isEmpty()) {
+            users = byId(User.class, userIds, User::getId, "_id").keySet();
+            Query profiles = Query.query(Criteria.where("userId").in(userIds));
+            profiles.fields().include("userId");
+            taken = mongoTemplate.find(profiles, Provider.class).stream()
+                    .map(Provider::getUserId).collect(Collectors.toSet());
+        }
+
+        List<Line<Provider>> valid = new ArrayList<>(batch.size());
+        List<Provider> providers = new ArrayList<>(batch.size());
+        Set<String> seenUserIds = new HashSet<>();
+        for (Line<Provider> line : batch) {
+            String userId = line.value().getUserId();
+            if (userId != null && !users.contains(userId)) {
+                report.reject(line.number(), "user " + userId + " not found");
+            } else if (userId != null && (taken.contains(userId) || !seenUserIds.add(userId))) {
+                report.reject(line.number(), "user " + userId + " already has a provider profile");
+            } else {
+                if (line.value().getId() == null) {
+                    line.value().setId(new ObjectId().toHexString());
+                }
+                valid.add(line);
+                providers.add(line.value());
+            }
+        }
+        if (providers.isEmpty()) {
+            return;
+        }
+        Set<Integer> failed = insert(Provider.class, valid, providers, report);
+        List<Provider> inserted = new ArrayList<>(providers.size() - failed.size());
+        for (int i = 0; i < providers.size(); i++) {
+            if (!failed.contains(i)) {
+                inserted.add(providers.get(i));
+            }
+        }
+        providerService.providersImported(inserted);
+    }
+
+    // ---- bookings ----
+
+    private Booking toBooking(Map<String, String> fields) {
+        Booking booking = new Booking();
+        booking.setId(optionalId(fields.get("id")));
+        booking.setUserId(required(fields, "userId"));
+        booking.setProviderId(required(fields, "providerId"));
+        booking.setBookingDate(date(fields, "bookingDate", true));
+        String status = blankToNull(fields.get("status"));
+        status = status == null ? "PENDING" : status.toUpperCase(Locale.ROOT);
+        if (!BOOKING_STATUSES.contains(status)) {
+            throw new IllegalArgumentException("unknown status " + fields.get("status"));
+        }
+        booking.setStatus(status);
+        booking.setUserName(blankToNull(fields.get("userName")));
+        booking.setProviderName(blankToNull(fields.get("providerName")));
+        booking.setService(blankToNull(fields.get("service")));
+        booking.setLocation(blankToNull(fields.get("location")));
+        booking.setDescription(blankToNull(fields.get("description")));
+        booking.setReview(blankToNull(fields.get("review")));
+        booking.setRating(range(fields, "rating", 0, 5));
+        Double price = number(fields, "price");
+        if (price != null && price < 0) {
+            throw new IllegalArgumentException("price must not be negative");
+        }
+        // Negative until the provider is looked up: "take the provider's price"
+        booking.setPrice(price == null ? -1 : price);
+        Date now = new Date();
+        Date createdAt = date(fields, "createdAt", false);
+        Date updatedAt = date(fields, "updatedAt", false);
+        booking.setCreatedAt(createdAt != null ? createdAt : now);
+        booking.setUpdatedAt(updatedAt != null ? updatedAt : booking.getCreatedAt());
+        return booking;
+    }
+
+    private void writeBookings(List<Line<Booking>> batch, Report report) {
+        // One lookup per collection for the whole batch fills in the denormalized fields
+        Set<String> providerIds = new HashSet<>();
+        Set<String> userIds = new HashSet<>();
+        Set<String> suppliedIds = new HashSet<>();
+        for (Line<Booking> line : batch) {
+            providerIds.add(line.value().getProviderId());
+            userIds.add(line.value().getUserId());
+            if (line.value().getId() != null) {
+                suppliedIds.add(line.value().getId());
+            }
+        }
+        Map<String, Provider> providers = byId(Provider.class, providerIds, Provider::getId,
+                "name", "service", "location", "price");
+        Map<String, User> users = byId(User.class, userIds, User::getId, "name");
+        // Existing ids are refused before any slot is claimed: releasing the claims of a
+        // failed insert by booking id must never touch the booking that already has the id
+        Set<String> existingIds = suppliedIds.isEmpty() ? Set.of()
+                : byId(Booking.class, suppliedIds, Booking::getId, "_id").keySet();
+
+        List<Line<Booking>> valid = new ArrayList<>(batch.size());
+        Set<String> seenIds = new HashSet<>();
+        for (Line<Booking> line : batch) {
+            Booking booking = line.value();
+            Provider provider = providers.get(booking.getProviderId());
+            User user = users.get(booking.getUserId());
+            if (provider == null) {
+                report.reject(line.number(), "provider " + booking.getProviderId() + " not found");
+            } else if (user == null) {
+                report.reject(line.number(), "user " + booking.getUserId() + " not found");
+            } else if (booking.getId() != null && (existingIds.contains(booking.getId())
+                    || !seenIds.add(booking.getId()))) {
+                report.reject(line.number(), "duplicate id " + booking.getId());
+            } else {
+                if (booking.getId() == null) {
+                    booking.setId(new ObjectId().toHexString());
+                }
+                if (booking.getUserName() == null) {
+                    booking.setUserName(user.getName());
+                }
+                if (booking.getProviderName() == null) {
+                    booking.setProviderName(provider.getName());
+                }
+                if (booking.getService() == null) {
+                    booking.setService(provider.getService());
+                }
+                if (booking.getLocation() == null) {
+                    booking.setLocation(provider.getLocation());
+                }
+                if (booking.getPrice() < 0) {
+                    booking.setPrice(provider.getPrice());
+                }
+                valid.add(line);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Set<String> conflicts = bookingService.claimImportedSlots(valid.stream().map(Line::value).toList());
+        List<Line<Booking>> claimed = new ArrayList<>(valid.size());
+        List<Booking> bookings = new ArrayList<>(valid.size());
+        for (Line<Booking> line : valid) {
+            if (conflicts.contains(line.value().getId())) {
+                report.reject(line.number(), "slot already booked for provider " + line.value().getProviderId());
+            } else {
+                claimed.add(line);
+                bookings.add(line.value());
+            }
+        }
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> failed = insert(Booking.class, claimed, bookings, report);
+        List<Booking> inserted = new ArrayList<>(bookings.size() - failed.size());
+        List<String> released = new ArrayList<>(failed.size());
+        for (int i = 0; i < bookings.size(); i++) {
+            if (failed.contains(i)) {
+                released.add(bookings.get(i).getId());
+            } else {
+                inserted.add(bookings.get(i));
+            }
+        }
+        bookingService.releaseImportedSlots(released);
+        bookingService.bookingsImported(inserted);
+    }
+
+    // ---- shared ----
+
+    // Unordered bulk insert; returns the batch indexes that failed, already reported by line
+    private <T> Set<Integer> insert(Class<T> type, List<Line<T>> lines, List<T> documents, Report report) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+            report.imported += documents.size();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                report.reject(lines.get(error.getIndex()).number(),
+                        error.getCode() == DUPLICATE_KEY ? "duplicate id" : error.getMessage());
+            }
+            report.imported += documents.size() - failed.size();
+            return failed;
+        }
+    }
+
+    private <T> Map<String, T> byId(Class<T> type, Set<String> ids, Function<T, String> id, String... fields) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include(fields);
+        return mongoTemplate.find(query, type).stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+
+    private JsonNode readJson(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid coordinates");
+        }
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = blankToNull(fields.get(name));
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value.trim();
+    }
+
+    private static String optionalId(String id) {
+        id = blankToNull(id);
+        if (id != null && !ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("id " + id + " is not an ObjectId");
+        }
+        return id;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static boolean bool(String value, boolean absent) {
+        value = blankToNull(value);
+        if (value == null) {
+            return absent;
+        }
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        throw new IllegalArgumentException("not a boolean: " + value);
+    }
+
+    private static Double number(Map<String, String> fields, String name) {
+        String value = blankToNull(fields.get(name));
+        if (value == null) {
+            return null;
+        }
+        try {
+            double number = Double.parseDouble(value.trim());
+            if (!Double.isFinite(number)) {
+                throw new NumberFormatException();
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value);
+        }
+    }
+
+    private static double range(Map<String, String> fields, String name, double min, double max) {
+        Double value = number(fields, name);
+        if (value == null) {
+            return 0;
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " out of range: " + fields.get(name));
+        }
+        return value;
+    }
+
+    // ISO instants (as exported), local date-times in the server's zone (as the booking API
+    // takes them) or epoch milliseconds
+    private static Date date(Map<String, String> fields, String name, boolean required) {
+        String value = required ? required(fields, name) : blankToNull(fields.get(name));
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        try {
+            if (value.chars().allMatch(Character::isDigit)) {
+                return new Date(Long.parseLong(value));
+            }
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(value,
+                    OffsetDateTime::from, LocalDateTime::from);
+            return parsed instanceof OffsetDateTime dateTime
+                    ? Date.from(dateTime.toInstant())
+                    : Date.from(((LocalDateTime) parsed).atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a date: " + value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter<T> {
+        void write(List<Line<T>> batch, Report report);
+    }
+
+    private record Line<T>(long number, T value) {
+    }
+
+    /** A record's fields by column name and the line it starts on. */
+    record Record(long line, Map<String, String> fields) {
+    }
+
+    interface RecordReader {
+        // Next record, or null at the end; unreadable records are reported and skipped
+        Record next(Report report) throws IOException;
+    }
+
+    /** One JSON object per line; nested values (a GeoJSON point) are kept as JSON text. */
+    static final class NdjsonRecordReader implements RecordReader {
+
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private final int maxChars;
+        private final StringBuilder buffer = new StringBuilder();
+        private long line;
+        private boolean tooLong;
+
+        NdjsonRecordReader(BufferedReader reader, ObjectMapper objectMapper, int maxChars) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public Record next(Report report) throws IOException {
+            String text;
+            while ((text = readLine()) != null) {
+                line++;
+                if (tooLong) {
+                    report.received++;
+                    report.reject(line, "record longer than " + maxChars + " characters");
+                    continue;
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException e) {
+                    report.received++;
+                    report.reject(line, "invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (!node.isObject()) {
+                    report.received++;
+                    report.reject(line, "not a JSON object");
+                    continue;
+                }
+                Map<String, String> fields = new HashMap<>();
+                for (Map.Entry<String, JsonNode> field : node.properties()) {
+                    JsonNode value = field.getValue();
+                    fields.put(field.getKey(), value.isNull() ? null
+                            : value.isContainerNode() ? value.toString() : value.asText());
+                }
+                return new Record(line, fields);
+            }
+            return null;
+        }
+
+        // Like BufferedReader.readLine, but past maxChars the rest of the line is skipped
+        // without being kept and tooLong is set
+        private String readLine() throws IOException {
+            buffer.setLength(0);
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            tooLong = false;
+            while (c >= 0 && c != '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                    break;
+                }
+                if (buffer.length() == maxChars) {
+                    tooLong = true;
+                } else if (!tooLong) {
+                    buffer.append((char) c);
+                }
+                c = reader.read();
+            }
+            return tooLong ? "" : buffer.toString();
+        }
+    }
+
+    /**
+     * RFC 4180 with a header row naming the columns. Quoted fields may hold commas, quotes
+     * and line breaks; a record is reported by the line it starts on.
+     */
+    static final class CsvRecordReader implements RecordReader {
+
+        private final BufferedReader reader;
+        private final int maxChars;
+        private List<String> header;
+        private long line = 1;
+        private boolean unterminated;
+        private boolean tooLong;
+        private int fieldChars; // read into the current field, kept or not
+
+        CsvRecordReader(BufferedReader reader, int maxChars) {
+            this.reader = reader;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public Record next(Report report) throws IOException {
+            if (header == null) {
+                List<String> names = readRow();
+                if (names == null) {
+                    return null;
+                }
+                if (tooLong) {
+                    report.reject(1, "header longer than " + maxChars + " characters");
+                    return null;
+                }
+                if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                    names.set(0, names.get(0).substring(1));
+                }
+                header = names.stream().map(String::trim).toList();
+            }
+            while (true) {
+                long start = line;
+                List<String> values = readRow();
+                if (values == null) {
+                    return null;
+                }
+                if (unterminated) {
+                    report.received++;
+                    report.reject(start, "unterminated quoted field");
+                    return null;
+                }
+                if (tooLong) {
+                    report.received++;
+                    report.reject(start, "record longer than " + maxChars + " characters");
+                    continue;
+                }
+                if (values.size() == 1 && values.get(0).isEmpty()) {
+                    continue; // blank line
+                }
+                if (values.size() != header.size()) {
+                    report.received++;
+                    report.reject(start, "expected " + header.size() + " fields, found " + values.size());
+                    continue;
+                }
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    fields.put(header.get(i), values.get(i));
+                }
+                return new Record(start, fields);
+            }
+        }
+
+        // Fields of the next row, or null at the end of the input. Past maxChars the row is
+        // still parsed to find where it ends, but nothing more is kept and tooLong is set
+        private List<String> readRow() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            tooLong = false;
+            fieldChars = 0;
+            int size = 0;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (!tooLong && ++size > maxChars) {
+                    tooLong = true;
+                    values.clear();
+                    field.setLength(0);
+                }
+                if (quoted) {
+                    if (c < 0) {
+                        unterminated = true;
+                        values.add(field.toString());
+                        return values;
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            append(field, '"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        append(field, c);
+                    }
+                } else if (c == '"' && fieldChars == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    if (!tooLong) {
+                        values.add(field.toString());
+                    }
+                    field.setLength(0);
+                    fieldChars = 0;
+                } else if (c == '\r' || c == '\n' || c < 0) {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    if (c >= 0) {
+                        line++;
+                    }
+                    values.add(field.toString());
+                    return values;
+                } else {
+                    append(field, c);
+                }
+                c = reader.read();
+            }
+        }
+
+        private void append(StringBuilder field, int c) {
+            fieldChars++;
+            if (!tooLong) {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /** Running counts of one import and the first errors, by line. */
+    static final class Report {
+
+        private final int maxErrors;
+        final List<LineError> errors = new ArrayList<>();
+        long received;
+        long imported;
+        long rejected;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new LineError(line, message));
+            }
+        }
+    }
+
+    public record LineError(long line, String message) {
+    }
+
+    /** What an import did: counts, throughput and the first errors by input line. */
+    public record ImportResult(String format, int batchSize, long received, long imported, long rejected,
+                               long durationMs, long recordsPerSecond, List<LineError> errors,
+                               boolean errorsTruncated) {
+    }
+}
@@ -0,0 +1,464 @@
+package com.fixnear.service;
+
+import com.fixnear.dto.NearbyProvider;
+import com.fixnear.model.Provider;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process catalog index answering provider searches without a Mongo round trip.
+ * Providers live in an ordinal-addressed slot table; normalized service and location
+ * keys map to sorted int posting lists which are intersected for combined searches.
+ * Ids are kept in a sorted map so keyset pages walk forward from the cursor.
+ * Providers with coordinates are also bucketed into geohash cells for nearby searches.
+ */
+@Component
+public class ProviderSearchIndex {
+
+    // Matches rarer than one in this many providers are paged from the postings, not the id walk
+    private static final int SPARSE_RATIO = 16;
+    private static final Comparator<Provider> BY_ID = Comparator.comparing(Provider::getId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // One rebuild at a time; each owns pendingWrites from its start to its swap
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final List<Provider> slots = new ArrayList<>();
+    // Sorted by id: ObjectId hex strings sort in _id order
+    private final NavigableMap<String, Integer> ordinals = new TreeMap<>();
+    private final Map<String, PostingList> byService = new HashMap<>();
+    private final Map<String, PostingList> byLocation = new HashMap<>();
+    private final Map<Long, PostingList> byCell = new HashMap<>();
+
+    // Writes that land while a rebuild is loading from Mongo, replayed in order on swap
+    private List<PendingWrite> pendingWrites;
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Provider> search(String service, String location) {
+        String serviceKey = normalize(service);
+        String locationKey = normalize(location);
+
+        lock.readLock().lock();
+        try {
+            if (serviceKey == null && locationKey == null) {
+                List<Provider> all = new ArrayList<>(ordinals.size());
+                for (Provider provider : slots) {
+                    if (provider != null) {
+                        all.add(provider);
+                    }
+                }
+                return all;
+            }
+
+            return resolve(postings(serviceKey, locationKey));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} matches with ids after {@code after}, in id order. Dense matches
+     * are found by walking the id map from the cursor and probing the postings, so a page
+     * costs about its own size; sparse ones keep only the lowest {@code limit} ids in a heap.
+     */
+    public List<Provider> searchPage(String service, String location, String after, int limit) {
+        String serviceKey = normalize(service);
+        String locationKey = normalize(location);
+
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Integer> tail = after == null ? ordinals : ordinals.tailMap(after, false);
+            boolean filtered = serviceKey != null || locationKey != null;
+            PostingList postings = filtered ? postings(serviceKey, locationKey) : null;
+            List<Provider> page = new ArrayList<>(Math.min(limit, ordinals.size()));
+            if (filtered && postings == null) {
+                return page;
+            }
+            if (postings == null || (long) postings.size * SPARSE_RATIO >= ordinals.size()) {
+                for (int ordinal : tail.values()) {
+                    if (page.size() == limit) {
+                        break;
+                    }
+                    if (postings == null || postings.contains(ordinal)) {
+                        page.add(slots.get(ordinal));
+                    }
+                }
+                return page;
+            }
+
+            PriorityQueue<Provider> lowest = new PriorityQueue<>(BY_ID.reversed());
+            for (int i = 0; i < postings.size && limit > 0; i++) {
+                Provider provider = slots.get(postings.ordinals[i]);
+                if (after != null && provider.getId().compareTo(after) <= 0) {
+                    continue;
+                }
+                if (lowest.size() < limit) {
+                    lowest.add(provider);
+                } else if (provider.getId().compareTo(lowest.peek().getId()) < 0) {
+                    lowest.poll();
+                    lowest.add(provider);
+                }
+            }
+            page.addAll(lowest);
+            page.sort(BY_ID);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks geohash cells in rings around the query point, keeping the closest {@code limit}
+     * matches, and stops as soon as no unvisited ring can hold anything closer.
+     */
+    public List<NearbyProvider> nearby(double lat, double lng, double radiusKm, String service, int limit) {
+        String serviceKey = normalize(service);
+
+        double latCellKm = GeoHashGrid.LAT_STEP * GeoHashGrid.KM_PER_DEGREE;
+        double maxAbsLat = Math.min(90.0, Math.abs(lat) + radiusKm / GeoHashGrid.KM_PER_DEGREE);
+        double lngCellKm = Math.max(
+                GeoHashGrid.LNG_STEP * GeoHashGrid.KM_PER_DEGREE * Math.cos(Math.toRadians(maxAbsLat)), 0.001);
+        double ringKm = Math.min(latCellKm, lngCellKm);
+        int latReach = (int) Math.ceil(radiusKm / latCellKm);
+        int lngReach = Math.min((int) Math.ceil(radiusKm / lngCellKm), GeoHashGrid.LNG_CELLS / 2);
+        int centerLat = GeoHashGrid.latIndex(lat);
+        int centerLng = GeoHashGrid.lngIndex(lng);
+
+        PriorityQueue<NearbyProvider> best = new PriorityQueue<>(
+                Comparator.comparingDouble(NearbyProvider::getDistanceKm).reversed());
+
+        lock.readLock().lock();
+        try {
+            PostingList servicePostings = null;
+            if (serviceKey != null) {
+                servicePostings = byService.get(serviceKey);
+                if (servicePostings == null) {
+                    return new ArrayList<>();
+                }
+            }
+
+            for (int ring = 0; ring <= Math.max(latReach, lngReach); ring++) {
+                // Every cell in this ring is at least (ring - 1) whole cells away from the query
+                double ringFloorKm = Math.max(0, ring - 1) * ringKm;
+                if (ringFloorKm > radiusKm
+                        || (best.size() == limit && best.peek().getDistanceKm() <= ringFloorKm)) {
+                    break;
+                }
+                int latSpan = Math.min(ring, latReach);
+                int lngSpan = Math.min(ring, lngReach);
+                for (int dLat = -latSpan; dLat <= latSpan; dLat++) {
+                    int latIdx = centerLat + dLat;
+                    if (latIdx < 0 || latIdx >= GeoHashGrid.LAT_CELLS) {
+                        continue;
+                    }
+                    if (Math.abs(dLat) == ring) {
+                        for (int dLng = -lngSpan; dLng <= lngSpan; dLng++) {
+                            collect(latIdx, centerLng, dLng, servicePostings, lat, lng, radiusKm, limit, best);
+                        }
+                    } else if (ring <= lngReach) {
+                        collect(latIdx, centerLng, -ring, servicePostings, lat, lng, radiusKm, limit, best);
+                        collect(latIdx, centerLng, ring, servicePostings, lat, lng, radiusKm, limit, best);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<NearbyProvider> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyProvider::getDistanceKm));
+        return result;
+    }
+
+    public void put(Provider provider) {
+        if (provider == null || provider.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(new PendingWrite(provider.getId(), provider));
+            }
+            index(provider);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(new PendingWrite(id, null));
+            }
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the index contents with a fresh load. The loader runs outside the lock so
+     * searches keep being served from the previous snapshot while Mongo is read. Returns
+     * false without loading when another rebuild is still running; its swap covers the
+     * writes made meanwhile.
+     */
+    public boolean rebuild(Supplier<? extends Collection<Provider>> loader) {
+        if (!rebuildLock.tryLock()) {
+            return false;
+        }
+        try {
+            List<PendingWrite> pending = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                pendingWrites = pending;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Collection<Provider> providers;
+            try {
+                providers = loader.get();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingWrites = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                slots.clear();
+                ordinals.clear();
+                byService.clear();
+                byLocation.clear();
+                byCell.clear();
+                for (Provider provider : providers) {
+                    if (provider.getId() != null) {
+                        index(provider);
+                    }
+                }
+                for (PendingWrite write : pending) {
+                    if (write.provider() == null) {
+                        unindex(write.id());
+                    } else {
+                        index(write.provider());
+                    }
+                }
+                pendingWrites = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return true;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private void index(Provider provider) {
+        Integer ordinal = ordinals.get(provider.getId());
+        if (ordinal == null) {
+            ordinal = slots.size();
+            slots.add(provider);
+            ordinals.put(provider.getId(), ordinal);
+        } else {
+            detach(ordinal, slots.get(ordinal));
+            slots.set(ordinal, provider);
+        }
+        attach(byService, normalize(provider.getService()), ordinal);
+        attach(byLocation, normalize(provider.getLocation()), ordinal);
+        attach(byCell, cellOf(provider), ordinal);
+    }
+
+    private void unindex(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            detach(ordinal, slots.get(ordinal));
+            slots.set(ordinal, null);
+        }
+    }
+
+    private void detach(int ordinal, Provider previous) {
+        if (previous == null) {
+            return;
+        }
+        detach(byService, normalize(previous.getService()), ordinal);
+        detach(byLocation, normalize(previous.getLocation()), ordinal);
+        detach(byCell, cellOf(previous), ordinal);
+    }
+
+    private void collect(int latIdx, int centerLng, int dLng, PostingList servicePostings,
+                         double lat, double lng, double radiusKm, int limit,
+                         PriorityQueue<NearbyProvider> best) {
+        // At full longitude reach -span and +span wrap onto the same cell
+        if (dLng == -GeoHashGrid.LNG_CELLS / 2) {
+            return;
+        }
+        int lngIdx = Math.floorMod(centerLng + dLng, GeoHashGrid.LNG_CELLS);
+        PostingList cell = byCell.get(GeoHashGrid.cell(latIdx, lngIdx));
+        if (cell == null) {
+            return;
+        }
+        for (int i = 0; i < cell.size; i++) {
+            int ordinal = cell.ordinals[i];
+            if (servicePostings != null && !servicePostings.contains(ordinal)) {
+                continue;
+            }
+            Provider provider = slots.get(ordinal);
+            GeoJsonPoint point = provider.getCoordinates();
+            double distanceKm = GeoHashGrid.distanceKm(lat, lng, point.getY(), point.getX());
+            if (distanceKm > radiusKm) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new NearbyProvider(provider, distanceKm));
+            } else if (distanceKm < best.peek().getDistanceKm()) {
+                best.poll();
+                best.add(new NearbyProvider(provider, distanceKm));
+            }
+        }
+    }
+
+    private static Long cellOf(Provider provider) {
+        GeoJsonPoint point = provider.getCoordinates();
+        return point == null ? null : GeoHashGrid.cell(point.getY(), point.getX());
+    }
+
+    private static <K> void attach(Map<K, PostingList> postings, K key, int ordinal) {
+        if (key != null) {
+            postings.computeIfAbsent(key, k -> new PostingList()).add(ordinal);
+        }
+    }
+
+    private static <K> void detach(Map<K, PostingList> postings, K key, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        PostingList list = postings.get(key);
+        if (list != null && list.remove(ordinal) && list.size == 0) {
+            postings.remove(key);
+        }
+    }
+
+    private PostingList postings(String serviceKey, String locationKey) {
+        if (serviceKey != null && locationKey != null) {
+            return PostingList.intersect(byService.get(serviceKey), byLocation.get(locationKey));
+        }
+        return serviceKey != null ? byService.get(serviceKey) : byLocation.get(locationKey);
+    }
+
+    private List<Provider> resolve(PostingList postings) {
+        if (postings == null) {
+            return new ArrayList<>();
+        }
+        List<Provider> result = new ArrayList<>(postings.size);
+        for (int i = 0; i < postings.size; i++) {
+            result.add(slots.get(postings.ordinals[i]));
+        }
+        return result;
+    }
+
+    private record PendingWrite(String id, Provider provider) {
+    }
+
+    // Sorted, growable int array of provider ordinals
+    static final class PostingList {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            int pos = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            System.arraycopy(ordinals, pos, ordinals, pos + 1, size - pos);
+            ordinals[pos] = ordinal;
+            size++;
+        }
+
+        boolean contains(int ordinal) {
+            return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+        }
+
+        boolean remove(int ordinal) {
+            int pos = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, pos + 1, ordinals, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        static PostingList intersect(PostingList a, PostingList b) {
+            PostingList result = new PostingList();
+            if (a == null || b == null) {
+                return result;
+            }
+            int i = 0;
+            int j = 0;
+            while (i < a.size && j < b.size) {
+                int x = a.ordinals[i];
+                int y = b.ordinals[j];
+                if (x == y) {
+                    result.add(x);
+                    i++;
+                    j++;
+                } else if (x < y) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -1,68 +1,195 @@
 package com.fixnear.service;
 
+import com.fixnear.config.CacheConfig;
+import com.fixnear.dto.CursorPage;
+import com.fixnear.dto.NearbyProvider;
 import com.fixnear.model.Provider;
 import com.fixnear.repository.ProviderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Date;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class ProviderService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProviderService.class);
+
     private final ProviderRepository providerRepository;
+    private final ProviderSearchIndex searchIndex;
+    private final MongoTemplate mongoTemplate;
+    private final StatsService statsService;
+    private final Cache providersById;
+    private final Cache providersByUser;
+    private final SingleFlight<SearchKey, List<Provider>> searches;
 
-    public ProviderService(ProviderRepository providerRepository) {
+    public ProviderService(ProviderRepository providerRepository,
+                           ProviderSearchIndex searchIndex,
+                           MongoTemplate mongoTemplate,
+                           StatsService statsService,
+                           CacheManager cacheManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${fixnear.search.coalesce.window-ms:0}") long coalesceWindowMs) {
         this.providerRepository = providerRepository;
+        this.searchIndex = searchIndex;
+        this.mongoTemplate = mongoTemplate;
+        this.statsService = statsService;
+        this.providersById = cacheManager.getCache(CacheConfig.PROVIDERS);
+        this.providersByUser = cacheManager.getCache(CacheConfig.PROVIDERS_BY_USER);
+        this.searches = new SingleFlight<>("provider-search", coalesceWindowMs, meterRegistry);
     }
 
-    public List<Provider> getAllProviders() {
-        return providerRepository.findAll();
+    // Load the search index once the app is up, and reload periodically so writes made
+    // through other backend instances show up here too
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${fixnear.search.index.refresh-ms:300000}",
+            fixedDelayString = "${fixnear.search.index.refresh-ms:300000}")
+    public void refreshSearchIndex() {
+        try {
+            if (searchIndex.rebuild(providerRepository::findAll)) {
+                log.info("Provider search index loaded with {} providers", searchIndex.size());
+            } else {
+                log.debug("Provider search index reload skipped, the previous one is still running");
+            }
+        } catch (Exception e) {
+            log.warn("Provider search index not loaded, searches fall back to Mongo: {}", e.getMessage());
+        }
     }
 
+    @Cacheable(cacheNames = CacheConfig.PROVIDERS, key = "#id")
     public Optional<Provider> getProviderById(String id) {
         return providerRepository.findById(id);
     }
 
+    @Cacheable(cacheNames = CacheConfig.PROVIDERS_BY_USER, key = "#userId")
     public java.util.Optional<Provider> getProviderByUserId(String userId) {
         return providerRepository.findByUserId(userId);
     }
 
     public List<Provider> getProvidersByService(String service) {
-        return providerRepository.findByServiceIgnoreCase(service);
+        if (searchIndex.isReady()) {
+            return searchIndex.search(service, null);
+        }
+        return providerRepository.findByServiceKey(ProviderSearchIndex.normalize(service));
     }
 
     public List<Provider> getProvidersByLocation(String location) {
-        return providerRepository.findByLocationIgnoreCase(location);
+        if (searchIndex.isReady()) {
+            return searchIndex.search(null, location);
+        }
+        return providerRepository.findByLocationKey(ProviderSearchIndex.normalize(location));
     }
 
+    // Identical searches arriving together share one execution and its (read-only) result:
+    // the first CursorPage.MAX_LIMIT matches, as searchProvidersPage would return them
     public List<Provider> searchProviders(String service, String location) {
-        // If both service and location provided
-        if (service != null && !service.trim().isEmpty() && 
-            location != null && !location.trim().isEmpty()) {
-            return providerRepository.findByServiceIgnoreCaseAndLocationIgnoreCase(service, location);
+        SearchKey key = new SearchKey(ProviderSearchIndex.normalize(service), ProviderSearchIndex.normalize(location));
+        return searches.get(key, () -> List.copyOf(
+                searchProvidersPage(key.service(), key.location(), null, CursorPage.MAX_LIMIT).getItems()));
+    }
+
+    // Keyset page of a provider search, ordered by _id
+    public CursorPage<Provider> searchProvidersPage(String service, String location, String after, Integer limit) {
+        Pageable page = CursorPage.request(limit);
+        boolean first = after == null || after.isEmpty();
+        String serviceKey = ProviderSearchIndex.normalize(service);
+        String locationKey = ProviderSearchIndex.normalize(location);
+
+        Slice<Provider> slice;
+        if (searchIndex.isReady()) {
+            List<Provider> matches = searchIndex.searchPage(service, location, first ? null : after,
+                    page.getPageSize() + 1);
+            boolean hasNext = matches.size() > page.getPageSize();
+            slice = new SliceImpl<>(hasNext ? matches.subList(0, page.getPageSize()) : matches, page, hasNext);
+        } else if (serviceKey != null && locationKey != null) {
+            slice = first ? providerRepository.findByServiceKeyAndLocationKey(serviceKey, locationKey, page)
+                    : providerRepository.findByServiceKeyAndLocationKeyAndIdGreaterThan(serviceKey, locationKey, after, page);
+        } else if (serviceKey != null) {
+            slice = first ? providerRepository.findByServiceKey(serviceKey, page)
+                    : providerRepository.findByServiceKeyAndIdGreaterThan(serviceKey, after, page);
+        } else if (locationKey != null) {
+            slice = first ? providerRepository.findByLocationKey(locationKey, page)
+                    : providerRepository.findByLocationKeyAndIdGreaterThan(locationKey, after, page);
+        } else {
+            slice = first ? providerRepository.findAllBy(page)
+                    : providerRepository.findByIdGreaterThan(after, page);
         }
-        // If only service provided
-        else if (service != null && !service.trim().isEmpty()) {
-            return providerRepository.findByServiceIgnoreCase(service);
+        return CursorPage.of(slice, Provider::getId);
+    }
+
+    // Providers within radiusKm of the point, closest first
+    public List<NearbyProvider> findNearbyProviders(double lat, double lng, double radiusKm,
+                                                    String service, int limit) {
+        if (searchIndex.isReady()) {
+            return searchIndex.nearby(lat, lng, radiusKm, service, limit);
         }
-        // If only location provided
-        else if (location != null && !location.trim().isEmpty()) {
-            return providerRepository.findByLocationIgnoreCase(location);
+
+        NearQuery nearQuery = NearQuery.near(new GeoJsonPoint(lng, lat), Metrics.KILOMETERS)
+                .maxDistance(radiusKm);
+        String serviceKey = ProviderSearchIndex.normalize(service);
+        if (serviceKey != null) {
+            nearQuery.query(Query.query(Criteria.where("serviceKey").is(serviceKey)));
         }
-        // If neither provided, return all
-        return providerRepository.findAll();
+        nearQuery.limit(limit);
+
+        return mongoTemplate.geoNear(nearQuery, Provider.class).getContent().stream()
+                .map(result -> new NearbyProvider(result.getContent(), result.getDistance().getValue()))
+                .collect(Collectors.toList());
     }
 
     @SuppressWarnings("null")
     public Provider saveProvider(Provider provider) {
-        return providerRepository.save(provider);
+        // Callers may have mutated a loaded provider already, so read what is stored
+        Provider stored = provider.getId() == null ? null : providerRepository.findById(provider.getId()).orElse(null);
+        StatsService.ProviderFacts previous = stored == null ? null : StatsService.ProviderFacts.of(stored);
+        // The stored version counts, not whatever the caller sent
+        provider.setVersion(stored == null ? 0 : stored.getVersion());
+        touch(provider);
+        Provider saved = providerRepository.save(provider);
+        searchIndex.put(saved);
+        statsService.providerSaved(previous, saved);
+        evict(stored);
+        evict(saved);
+        return saved;
+    }
+
+    // Brings the search index, dashboard counters and caches up to date with providers
+    // that were bulk-inserted as new documents
+    public void providersImported(List<Provider> providers) {
+        for (Provider provider : providers) {
+            searchIndex.put(provider);
+            statsService.providerSaved(null, provider);
+            evict(provider);
+        }
     }
 
     @SuppressWarnings("null")
     public Provider updateProvider(String id, Provider updatedProvider) {
         return providerRepository.findById(id)
                 .map(provider -> {
+                    StatsService.ProviderFacts previous = StatsService.ProviderFacts.of(provider);
+                    String previousUserId = provider.getUserId();
                     provider.setName(updatedProvider.getName());
                     provider.setService(updatedProvider.getService());
                     provider.setLocation(updatedProvider.getLocation());
@@ -71,15 +198,30 @@ public class ProviderService {
                     if (updatedProvider.getUserId() != null) {
                         provider.setUserId(updatedProvider.getUserId());
                     }
+                    if (updatedProvider.getCoordinates() != null) {
+                        provider.setCoordinates(updatedProvider.getCoordinates());
+                    }
                     provider.setWorkingHours(updatedProvider.getWorkingHours());
                     provider.setPrice(updatedProvider.getPrice());
-                    return providerRepository.save(provider);
+                    touch(provider);
+                    Provider saved = providerRepository.save(provider);
+                    searchIndex.put(saved);
+                    statsService.providerSaved(previous, saved);
+                    evictUser(previousUserId);
+                    evict(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Provider not found"));
     }
 
+    @SuppressWarnings("null")
     public void deleteProvider(String id) {
-        providerRepository.deleteById(id);
+        providerRepository.findById(id).ifPresent(provider -> {
+            providerRepository.deleteById(id);
+            searchIndex.remove(id);
+            statsService.providerDeleted(StatsService.ProviderFacts.of(provider));
+            evict(provider);
+        });
     }
 
     public List<Provider> getAvailableProviders() {
@@ -90,9 +232,57 @@ public class ProviderService {
     public Provider updateProviderRating(String id, double newRating) {
         return providerRepository.findById(id)
                 .map(provider -> {
+                    StatsService.ProviderFacts previous = StatsService.ProviderFacts.of(provider);
                     provider.setRating(newRating);
-                    return providerRepository.save(provider);
+                    touch(provider);
+                    Provider saved = providerRepository.save(provider);
+                    searchIndex.put(saved);
+                    statsService.providerSaved(previous, saved);
+                    evict(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Provider not found"));
     }
+
+    // Flip availability on the stored document rather than on a cached instance
+    @SuppressWarnings("null")
+    public Optional<Provider> updateAvailability(String id, boolean available) {
+        return providerRepository.findById(id)
+                .map(provider -> {
+                    StatsService.ProviderFacts previous = StatsService.ProviderFacts.of(provider);
+                    provider.setAvailable(available);
+                    touch(provider);
+                    Provider saved = providerRepository.save(provider);
+                    searchIndex.put(saved);
+                    statsService.providerSaved(previous, saved);
+                    evict(saved);
+                    return saved;
+                });
+    }
+
+    private static void touch(Provider provider) {
+        provider.setVersion(provider.getVersion() + 1);
+        provider.setUpdatedAt(new Date());
+    }
+
+    // Drop the cached lookups and search results that could return this provider
+    private void evict(Provider provider) {
+        if (provider == null) {
+            return;
+        }
+        searches.forget();
+        if (provider.getId() != null) {
+            providersById.evict(provider.getId());
+        }
+        evictUser(provider.getUserId());
+    }
+
+    private void evictUser(String userId) {
+        if (userId != null) {
+            providersByUser.evict(userId);
+        }
+    }
+
+    private record SearchKey(String service, String location) {
+    }
 }
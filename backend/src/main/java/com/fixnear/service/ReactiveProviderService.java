@@ -0,0 +1,93 @@
+package com.fixnear.service;
+
+import com.fixnear.dto.CursorPage;
+import com.fixnear.model.Provider;
+import com.fixnear.repository.reactive.ReactiveProviderRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Provider reads for the "reactive" profile. Warm searches are still answered from the
+ * in-memory ProviderSearchIndex; everything else goes through the reactive driver, so no
+ * request thread waits on Mongo.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProviderService {
+
+    private final ReactiveProviderRepository providerRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ProviderSearchIndex searchIndex;
+
+    public ReactiveProviderService(ReactiveProviderRepository providerRepository,
+                                   ReactiveMongoTemplate mongoTemplate,
+                                   ProviderSearchIndex searchIndex) {
+        this.providerRepository = providerRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.searchIndex = searchIndex;
+    }
+
+    public Flux<Provider> searchProviders(String service, String location) {
+        if (searchIndex.isReady()) {
+            return Flux.defer(() -> Flux.fromIterable(searchIndex.search(service, location)));
+        }
+        String serviceKey = ProviderSearchIndex.normalize(service);
+        String locationKey = ProviderSearchIndex.normalize(location);
+        if (serviceKey != null && locationKey != null) {
+            return providerRepository.findByServiceKeyAndLocationKey(serviceKey, locationKey);
+        } else if (serviceKey != null) {
+            return providerRepository.findByServiceKey(serviceKey);
+        } else if (locationKey != null) {
+            return providerRepository.findByLocationKey(locationKey);
+        }
+        return providerRepository.findAll();
+    }
+
+    // Keyset page ordered by _id; reads one extra document to know whether more follow
+    public Mono<CursorPage<Provider>> searchProvidersPage(String service, String location, String after, Integer limit) {
+        Pageable page = CursorPage.request(limit);
+        Query query = new Query().with(page.getSort()).limit(page.getPageSize() + 1);
+        String serviceKey = ProviderSearchIndex.normalize(service);
+        String locationKey = ProviderSearchIndex.normalize(location);
+        if (serviceKey != null) {
+            query.addCriteria(Criteria.where("serviceKey").is(serviceKey));
+        }
+        if (locationKey != null) {
+            query.addCriteria(Criteria.where("locationKey").is(locationKey));
+        }
+        if (after != null && !after.isEmpty()) {
+            query.addCriteria(Criteria.where("id").gt(after));
+        }
+        return mongoTemplate.find(query, Provider.class)
+                .collectList()
+                .map(rows -> {
+                    boolean hasNext = rows.size() > page.getPageSize();
+                    List<Provider> items = hasNext ? rows.subList(0, page.getPageSize()) : rows;
+                    return CursorPage.of(new SliceImpl<>(items, page, hasNext), Provider::getId);
+                });
+    }
+
+    public Flux<Provider> getAvailableProviders() {
+        return providerRepository.findByAvailableTrue();
+    }
+
+    public Flux<Provider> getProvidersByLocation(String location) {
+        if (searchIndex.isReady()) {
+            return Flux.defer(() -> Flux.fromIterable(searchIndex.search(null, location)));
+        }
+        return providerRepository.findByLocationKey(ProviderSearchIndex.normalize(location));
+    }
+
+    public Mono<Provider> getProviderById(String id) {
+        return providerRepository.findById(id);
+    }
+}
@@ -0,0 +1,130 @@
+package com.fixnear.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key onto one execution: the first caller runs the
+ * loader, everyone arriving while it runs waits for that result. With a non-zero window the
+ * finished result keeps answering the key for that long, as a micro-cache. Failures are never
+ * kept, so the next caller after one starts a fresh execution. {@link #forget()} starts a new
+ * generation: flights begun before it are neither joined nor kept afterwards.
+ */
+final class SingleFlight<K, V> {
+
+    // Finished entries are swept once the map grows past this many keys
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter executed;
+    private final Counter collapsed;
+    private final Counter cached;
+
+    SingleFlight(String name, long windowMs, MeterRegistry meterRegistry) {
+        this.windowNanos = windowMs * 1_000_000L;
+        this.executed = counter(meterRegistry, name, "executed");
+        this.collapsed = counter(meterRegistry, name, "collapsed");
+        this.cached = counter(meterRegistry, name, "cached");
+    }
+
+    V get(K key, Supplier<V> loader) {
+        while (true) {
+            long current = generation.get();
+            Flight<V> flight = flights.get(key);
+            if (flight != null && flight.generation != current) {
+                flights.remove(key, flight); // started before a write; its result may be stale
+            } else if (flight != null) {
+                if (!flight.result.isDone()) {
+                    collapsed.increment();
+                    return await(flight);
+                }
+                if (System.nanoTime() - flight.completedAt < windowNanos) {
+                    cached.increment();
+                    return await(flight);
+                }
+                flights.remove(key, flight);
+            }
+
+            Flight<V> mine = new Flight<>(current);
+            if (flights.putIfAbsent(key, mine) != null) {
+                continue; // another caller became the leader first
+            }
+            if (flights.size() > SWEEP_THRESHOLD) {
+                sweep();
+            }
+            executed.increment();
+            V value;
+            try {
+                value = loader.get();
+            } catch (RuntimeException | Error e) {
+                flights.remove(key, mine);
+                mine.result.completeExceptionally(e);
+                throw e;
+            }
+            mine.completedAt = System.nanoTime();
+            // A write while the loader ran means the result may miss it: hand it to the callers
+            // already waiting, but do not serve it to anyone else
+            if (windowNanos == 0 || generation.get() != current) {
+                flights.remove(key, mine);
+            }
+            mine.result.complete(value);
+            return value;
+        }
+    }
+
+    // Drop results, finished or still running, e.g. after a write that could change them
+    void forget() {
+        generation.incrementAndGet();
+        flights.values().removeIf(flight -> flight.result.isDone());
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        flights.values().removeIf(flight -> flight.result.isDone() && now - flight.completedAt >= windowNanos);
+    }
+
+    private V await(Flight<V> flight) {
+        try {
+            return flight.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared result", e);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("fixnear.singleflight.calls")
+                .tag("name", name)
+                .tag("result", result)
+                .description("Calls answered by running the loader, by joining one in flight, or from the window")
+                .register(meterRegistry);
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final long generation;
+        volatile long completedAt;
+
+        Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+}
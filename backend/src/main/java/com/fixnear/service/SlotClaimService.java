@@ -0,0 +1,110 @@
+package com.fixnear.service;
+
+import com.fixnear.model.Booking;
+import com.fixnear.model.SlotClaim;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserves provider time across every backend instance by inserting one slot_claims document
+ * per slot. The insert of an _id that already exists fails on the server, so two overlapping
+ * bookings can never both hold a shared slot, with no application-level locking.
+ */
+@Service
+public class SlotClaimService {
+
+    private static final long RETENTION_MS = TimeUnit.DAYS.toMillis(1);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final SlotEngine slotEngine;
+
+    public SlotClaimService(MongoTemplate mongoTemplate, SlotEngine slotEngine) {
+        this.mongoTemplate = mongoTemplate;
+        this.slotEngine = slotEngine;
+    }
+
+    /**
+     * Claims every slot the booking covers, or none of them. Slots are claimed in ascending
+     * order so concurrent overlapping requests meet on the same first contested slot.
+     */
+    public boolean claim(Booking booking) {
+        Date expiresAt = new Date(booking.getBookingDate().getTime()
+                + TimeUnit.MINUTES.toMillis(slotEngine.getBookingMinutes()) + RETENTION_MS);
+        List<SlotClaim> claimed = new ArrayList<>();
+        try {
+            for (String slotId : slotEngine.slotIds(booking)) {
+                claimed.add(mongoTemplate.insert(new SlotClaim(slotId, booking.getId(), expiresAt)));
+            }
+            return true;
+        } catch (DuplicateKeyException e) {
+            if (!claimed.isEmpty()) {
+                release(booking.getId());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Claims the slots of many bookings in one unordered bulk insert and returns the ids of
+     * the bookings that lost a slot, to an existing claim or to another booking in the list;
+     * those keep no claims. Slots whose claim would already have expired are skipped, so
+     * imported history costs nothing here.
+     */
+    public Set<String> claimAll(List<Booking> bookings) {
+        long now = System.currentTimeMillis();
+        List<SlotClaim> claims = new ArrayList<>();
+        for (Booking booking : bookings) {
+            Date expiresAt = new Date(booking.getBookingDate().getTime()
+                    + TimeUnit.MINUTES.toMillis(slotEngine.getBookingMinutes()) + RETENTION_MS);
+            if (expiresAt.getTime() > now) {
+                for (String slotId : slotEngine.slotIds(booking)) {
+                    claims.add(new SlotClaim(slotId, booking.getId(), expiresAt));
+                }
+            }
+        }
+        Set<String> lost = new HashSet<>();
+        if (claims.isEmpty()) {
+            return lost;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SlotClaim.class).insert(claims).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    releaseAll(bookings.stream().map(Booking::getId).toList());
+                    throw e;
+                }
+                lost.add(claims.get(error.getIndex()).getBookingId());
+            }
+            releaseAll(lost);
+        }
+        return lost;
+    }
+
+    public void releaseAll(Collection<String> bookingIds) {
+        if (!bookingIds.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("bookingId").in(bookingIds)), SlotClaim.class);
+        }
+    }
+
+    public void release(String bookingId) {
+        if (bookingId != null) {
+            mongoTemplate.remove(Query.query(Criteria.where("bookingId").is(bookingId)), SlotClaim.class);
+        }
+    }
+}
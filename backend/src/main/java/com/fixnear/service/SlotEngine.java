@@ -0,0 +1,344 @@
+package com.fixnear.service;
+
+import com.fixnear.model.Availability;
+import com.fixnear.model.Booking;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-provider schedules kept as bitsets of 30-minute slots: one long per weekday for the
+ * opening hours from {@link Availability}, and one long per calendar day for the slots taken
+ * by active bookings. A conflict check is a couple of AND operations per day touched.
+ * Providers without any availability windows are treated as open around the clock.
+ */
+@Component
+public class SlotEngine {
+
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private static final long FULL_DAY = (1L << SLOTS_PER_DAY) - 1;
+
+    // Bookings in these states no longer take up the provider's time
+    private static final Set<String> RELEASED_STATUSES = Set.of("CANCELLED", "REJECTED");
+
+    private final MongoTemplate mongoTemplate;
+    private final int slotsPerBooking;
+    private final long cacheTtlMs;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+    public SlotEngine(MongoTemplate mongoTemplate,
+                      @Value("${fixnear.slots.booking-minutes:60}") int bookingMinutes,
+                      @Value("${fixnear.slots.cache-ttl-ms:60000}") long cacheTtlMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.slotsPerBooking = Math.max(1, (bookingMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    public int getBookingMinutes() {
+        return slotsPerBooking * SLOT_MINUTES;
+    }
+
+    public static boolean holdsSlot(Booking booking) {
+        return booking.getProviderId() != null
+                && booking.getBookingDate() != null
+                && (booking.getStatus() == null || !RELEASED_STATUSES.contains(booking.getStatus().toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * Marks the booking's slots as taken if they are all open and free. The booking must
+     * already carry its id. Returns false, changing nothing, on a conflict.
+     */
+    public boolean tryReserve(Booking booking) {
+        List<Placement> placements = placementsOf(booking.getBookingDate());
+        Schedule schedule = scheduleFor(booking.getProviderId());
+        schedule.lock.lock();
+        try {
+            for (Placement placement : placements) {
+                if (!schedule.isFree(placement)) {
+                    return false;
+                }
+            }
+            schedule.take(booking.getId(), placements);
+            return true;
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    public void release(String providerId, String bookingId) {
+        if (providerId == null || bookingId == null) {
+            return;
+        }
+        Schedule schedule = schedules.get(providerId);
+        if (schedule != null) {
+            schedule.lock.lock();
+            try {
+                schedule.free(bookingId);
+            } finally {
+                schedule.lock.unlock();
+            }
+        }
+    }
+
+    // One id per slot the booking covers: providerId:epochDay:slotIndex
+    public List<String> slotIds(Booking booking) {
+        List<String> ids = new ArrayList<>(slotsPerBooking + 1);
+        for (Placement placement : placementsOf(booking.getBookingDate())) {
+            long mask = placement.mask();
+            while (mask != 0) {
+                ids.add(booking.getProviderId() + ":" + placement.epochDay() + ":" + Long.numberOfTrailingZeros(mask));
+                mask &= mask - 1;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Slot ids held by stored active bookings of the given bookings' providers, around their
+     * times: one query for the lot, so bulk imports see bookings that never had slot claims.
+     */
+    public Set<String> storedSlotIds(Collection<Booking> bookings) {
+        Map<String, Date[]> ranges = new HashMap<>();
+        for (Booking booking : bookings) {
+            Date start = booking.getBookingDate();
+            ranges.merge(booking.getProviderId(), new Date[] {start, start}, (a, b) -> new Date[] {
+                    a[0].before(b[0]) ? a[0] : b[0], a[1].after(b[1]) ? a[1] : b[1]});
+        }
+        Set<String> taken = new HashSet<>();
+        if (ranges.isEmpty()) {
+            return taken;
+        }
+        // A stored booking overlaps only if it starts less than one booking (plus the slot an
+        // off-grid start spills into) before or after an imported one
+        long reachMs = (long) (slotsPerBooking + 1) * SLOT_MINUTES * 60_000;
+        List<Criteria> perProvider = new ArrayList<>(ranges.size());
+        ranges.forEach((providerId, range) -> perProvider.add(Criteria.where("providerId").is(providerId)
+                .and("bookingDate").gt(new Date(range[0].getTime() - reachMs))
+                .lt(new Date(range[1].getTime() + reachMs))));
+        Query stored = Query.query(new Criteria().orOperator(perProvider).and("status").nin(RELEASED_STATUSES));
+        stored.fields().include("providerId", "bookingDate");
+        for (Booking booking : mongoTemplate.find(stored, Booking.class)) {
+            taken.addAll(slotIds(booking));
+        }
+        return taken;
+    }
+
+    // Start times in [from, to] at which a booking of the configured length fits
+    public List<LocalDateTime> freeSlots(String providerId, LocalDate from, LocalDate to) {
+        Schedule schedule = scheduleFor(providerId);
+        LocalDateTime now = LocalDateTime.now(zone);
+        List<LocalDateTime> starts = new ArrayList<>();
+        schedule.lock.lock();
+        try {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                long epochDay = day.toEpochDay();
+                // Bit s survives only if slots s .. s+n-1 are all free, counting on into the
+                // following days for bookings that run past midnight, as tryReserve does
+                long fits = schedule.freeOn(epochDay);
+                for (int i = 1; i < slotsPerBooking; i++) {
+                    long offsetDay = epochDay + i / SLOTS_PER_DAY;
+                    int shift = i % SLOTS_PER_DAY;
+                    fits &= schedule.freeOn(offsetDay) >>> shift
+                            | schedule.freeOn(offsetDay + 1) << (SLOTS_PER_DAY - shift);
+                }
+                while (fits != 0) {
+                    int slot = Long.numberOfTrailingZeros(fits);
+                    fits &= fits - 1;
+                    LocalDateTime start = day.atStartOfDay().plusMinutes((long) slot * SLOT_MINUTES);
+                    if (start.isAfter(now)) {
+                        starts.add(start);
+                    }
+                }
+            }
+        } finally {
+            schedule.lock.unlock();
+        }
+        return starts;
+    }
+
+    // Drops the cached schedule so the next request reloads it from Mongo
+    public void invalidate(String providerId) {
+        schedules.remove(providerId);
+    }
+
+    private Schedule scheduleFor(String providerId) {
+        Schedule schedule = schedules.get(providerId);
+        if (schedule == null || schedule.loadedAt + cacheTtlMs < System.currentTimeMillis()) {
+            schedule = load(providerId);
+            schedules.put(providerId, schedule);
+        }
+        return schedule;
+    }
+
+    private Schedule load(String providerId) {
+        Schedule schedule = new Schedule(System.currentTimeMillis());
+
+        Object providerRef = ObjectId.isValid(providerId) ? new ObjectId(providerId) : providerId;
+        Query windows = Query.query(Criteria.where("provider.$id").is(providerRef));
+        windows.fields().exclude("provider");
+        List<Availability> availabilities = mongoTemplate.find(windows, Availability.class);
+        if (availabilities.isEmpty()) {
+            Arrays.fill(schedule.weekly, FULL_DAY);
+        }
+        for (Availability availability : availabilities) {
+            DayOfWeek day = parseDay(availability.getDayOfWeek());
+            if (day != null && !Boolean.FALSE.equals(availability.getIsAvailable())) {
+                schedule.weekly[day.ordinal()] |= windowMask(availability.getStartTime(), availability.getEndTime());
+            }
+        }
+
+        Date startOfToday = Date.from(LocalDate.now(zone).atStartOfDay(zone).toInstant());
+        Query active = Query.query(Criteria.where("providerId").is(providerId)
+                .and("bookingDate").gte(startOfToday)
+                .and("status").nin(RELEASED_STATUSES));
+        active.fields().include("bookingDate");
+        for (Booking booking : mongoTemplate.find(active, Booking.class)) {
+            schedule.take(booking.getId(), placementsOf(booking.getBookingDate()));
+        }
+        return schedule;
+    }
+
+    // The slots a booking starting at the given time covers, split per calendar day. An
+    // off-grid start also holds the slot its end falls into, so 10:15-11:15 takes 10:00-11:30.
+    private List<Placement> placementsOf(Date bookingDate) {
+        LocalDateTime start = bookingDate.toInstant().atZone(zone).toLocalDateTime();
+        long day = start.toLocalDate().toEpochDay();
+        int second = start.toLocalTime().toSecondOfDay();
+        int slotSeconds = SLOT_MINUTES * 60;
+        int slot = second / slotSeconds;
+        int end = (second + slotsPerBooking * slotSeconds + slotSeconds - 1) / slotSeconds;
+        int remaining = end - slot;
+
+        List<Placement> placements = new ArrayList<>(2);
+        while (remaining > 0) {
+            int count = Math.min(remaining, SLOTS_PER_DAY - slot);
+            placements.add(new Placement(day, rangeMask(slot, slot + count)));
+            remaining -= count;
+            day++;
+            slot = 0;
+        }
+        return placements;
+    }
+
+    // Only whole slots inside the window count; an end at or before the start means midnight
+    private static long windowMask(LocalTime start, LocalTime end) {
+        if (start == null || end == null) {
+            return 0;
+        }
+        int from = (start.toSecondOfDay() / 60 + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        int to = end.isAfter(start) ? end.toSecondOfDay() / 60 / SLOT_MINUTES : SLOTS_PER_DAY;
+        return from < to ? rangeMask(from, to) : 0;
+    }
+
+    private static long rangeMask(int from, int to) {
+        return ((1L << (to - from)) - 1) << from;
+    }
+
+    private static DayOfWeek parseDay(String value) {
+        if (value == null || value.trim().length() < 3) {
+            return null;
+        }
+        String prefix = value.trim().substring(0, 3).toUpperCase(Locale.ROOT);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().startsWith(prefix)) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    private record Placement(long epochDay, long mask) {
+    }
+
+    // ReentrantLock rather than synchronized so waiting virtual threads do not pin their carrier
+    private static final class Schedule {
+        final ReentrantLock lock = new ReentrantLock();
+        final long loadedAt;
+        // Indexed by DayOfWeek.ordinal(), Monday first
+        final long[] weekly = new long[7];
+        final Map<Long, Long> bookedByDay = new HashMap<>();
+        final Map<Long, Map<String, Long>> bookingsByDay = new HashMap<>();
+        final Map<String, List<Placement>> byBooking = new HashMap<>();
+
+        Schedule(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        long bookedOn(long epochDay) {
+            return bookedByDay.getOrDefault(epochDay, 0L);
+        }
+
+        // Open and not yet booked
+        long freeOn(long epochDay) {
+            return weekly[LocalDate.ofEpochDay(epochDay).getDayOfWeek().ordinal()] & ~bookedOn(epochDay);
+        }
+
+        boolean isFree(Placement placement) {
+            return (placement.mask() & ~freeOn(placement.epochDay())) == 0;
+        }
+
+        void take(String bookingId, List<Placement> placements) {
+            if (bookingId != null) {
+                byBooking.put(bookingId, placements);
+            }
+            for (Placement placement : placements) {
+                bookedByDay.merge(placement.epochDay(), placement.mask(), (a, b) -> a | b);
+                if (bookingId != null) {
+                    bookingsByDay.computeIfAbsent(placement.epochDay(), d -> new HashMap<>())
+                            .put(bookingId, placement.mask());
+                }
+            }
+        }
+
+        void free(String bookingId) {
+            List<Placement> placements = byBooking.remove(bookingId);
+            if (placements == null) {
+                return;
+            }
+            // Rebuild each touched day from that day's remaining bookings, in case older data overlaps
+            for (Placement placement : placements) {
+                Map<String, Long> day = bookingsByDay.get(placement.epochDay());
+                long mask = 0;
+                if (day != null) {
+                    day.remove(bookingId);
+                    for (long other : day.values()) {
+                        mask |= other;
+                    }
+                    if (day.isEmpty()) {
+                        bookingsByDay.remove(placement.epochDay());
+                    }
+                }
+                if (mask == 0) {
+                    bookedByDay.remove(placement.epochDay());
+                } else {
+                    bookedByDay.put(placement.epochDay(), mask);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.fixnear.service;
+
+import com.fixnear.model.Provider;
+import com.fixnear.model.StatsSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dashboard counters maintained on every write instead of recomputed per request.
+ * Local deltas accumulate in memory and are flushed with $inc into the shared "stats"
+ * document, whose returned totals become the new baseline, so several backend
+ * instances add up correctly. Reads are baseline plus unflushed deltas. A rebuild bumps
+ * the document's generation; flushes only apply to the generation their baseline came from.
+ */
+@Service
+public class StatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final AdminStatsService adminStatsService;
+
+    private volatile StatsSnapshot baseline;
+    private final Deltas pending = new Deltas();
+    // A flush must not $inc into a document that a rebuild is about to replace
+    private final ReentrantLock persistLock = new ReentrantLock();
+
+    public StatsService(MongoTemplate mongoTemplate, AdminStatsService adminStatsService) {
+        this.mongoTemplate = mongoTemplate;
+        this.adminStatsService = adminStatsService;
+    }
+
+    // ---- write paths ----
+
+    public void bookingCreated(String status) {
+        pending.booking(status, 1);
+    }
+
+    public void bookingStatusChanged(String previous, String current) {
+        if (previous == null ? current == null : previous.equals(current)) {
+            return;
+        }
+        pending.booking(previous, -1);
+        pending.booking(current, 1);
+    }
+
+    public void bookingDeleted(String status) {
+        pending.booking(status, -1);
+    }
+
+    public void userCreated(boolean enabled) {
+        pending.totalUsers.increment();
+        if (enabled) {
+            pending.enabledUsers.increment();
+        }
+    }
+
+    public void userStatusChanged(boolean previous, boolean current) {
+        if (previous != current) {
+            pending.enabledUsers.add(current ? 1 : -1);
+        }
+    }
+
+    public void userDeleted(boolean enabled) {
+        pending.totalUsers.decrement();
+        if (enabled) {
+            pending.enabledUsers.decrement();
+        }
+    }
+
+    // previous is the stored state before the write, null for a new provider
+    public void providerSaved(ProviderFacts previous, Provider current) {
+        if (previous != null) {
+            providerDeleted(previous);
+        }
+        ProviderFacts facts = ProviderFacts.of(current);
+        pending.totalProviders.increment();
+        if (facts.available()) {
+            pending.availableProviders.increment();
+        }
+        pending.ratingSum.add(facts.rating());
+        pending.service(facts.service(), 1);
+    }
+
+    public void providerDeleted(ProviderFacts previous) {
+        pending.totalProviders.decrement();
+        if (previous.available()) {
+            pending.availableProviders.decrement();
+        }
+        pending.ratingSum.add(-previous.rating());
+        pending.service(previous.service(), -1);
+    }
+
+    // ---- reads ----
+
+    public boolean isReady() {
+        return baseline != null;
+    }
+
+    public Map<String, Object> getDashboard() {
+        StatsSnapshot current = current();
+        if (current == null) {
+            return adminStatsService.getDashboard();
+        }
+        Map<String, Object> dashboard = new HashMap<>();
+        Map<String, Long> bookings = current.getBookingsByStatus();
+        dashboard.put("totalUsers", current.getTotalUsers());
+        dashboard.put("totalProviders", current.getTotalProviders());
+        dashboard.put("totalBookings", bookings.values().stream().mapToLong(Long::longValue).sum());
+        dashboard.put("completedBookings", bookings.getOrDefault("COMPLETED", 0L));
+        dashboard.put("pendingBookings", bookings.getOrDefault("PENDING", 0L));
+        dashboard.put("confirmedBookings", bookings.getOrDefault("CONFIRMED", 0L));
+        dashboard.put("averageProviderRating", current.getTotalProviders() == 0
+                ? 0.0 : current.getRatingSum() / current.getTotalProviders());
+        dashboard.put("activeProviders", current.getAvailableProviders());
+        return dashboard;
+    }
+
+    public Map<String, Object> getAnalytics() {
+        StatsSnapshot current = current();
+        if (current == null) {
+            return adminStatsService.getAnalytics();
+        }
+        Map<String, Object> analytics = new HashMap<>();
+        Map<String, Long> bookings = current.getBookingsByStatus();
+        analytics.put("totalUsers", current.getTotalUsers());
+        analytics.put("enabledUsers", current.getEnabledUsers());
+        analytics.put("disabledUsers", current.getTotalUsers() - current.getEnabledUsers());
+        analytics.put("totalProviders", current.getTotalProviders());
+        analytics.put("availableProviders", current.getAvailableProviders());
+        analytics.put("totalBookings", bookings.values().stream().mapToLong(Long::longValue).sum());
+        analytics.put("completedBookings", bookings.getOrDefault("COMPLETED", 0L));
+        analytics.put("cancelledBookings", bookings.getOrDefault("CANCELLED", 0L));
+        Map<String, Long> services = new HashMap<>(current.getServiceBreakdown());
+        services.values().removeIf(count -> count <= 0);
+        analytics.put("serviceBreakdown", services);
+        return analytics;
+    }
+
+    // ---- persistence ----
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        persistLock.lock();
+        try {
+            StatsSnapshot stored = mongoTemplate.findById(StatsSnapshot.GLOBAL_ID, StatsSnapshot.class);
+            if (stored == null) {
+                rebuild();
+            } else {
+                baseline = stored;
+            }
+        } catch (Exception e) {
+            log.warn("Stats not loaded, dashboards use aggregations until the next flush: {}", e.getMessage());
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${fixnear.stats.flush-ms:10000}",
+            fixedDelayString = "${fixnear.stats.flush-ms:10000}")
+    public void flush() {
+        persistLock.lock();
+        try {
+            if (baseline == null) {
+                // Never $inc into a missing document: that would store the deltas as totals
+                load();
+                if (baseline == null) {
+                    return;
+                }
+            }
+            Deltas drained = pending.drain();
+            try {
+                Update update = drained.toUpdate();
+                update.set("updatedAt", new Date());
+                StatsSnapshot flushed = mongoTemplate.findAndModify(
+                        sameGeneration(baseline.getGeneration()),
+                        update,
+                        FindAndModifyOptions.options().returnNew(true),
+                        StatsSnapshot.class);
+                if (flushed == null) {
+                    // Rebuilt elsewhere since our baseline: its aggregation already counted
+                    // these writes, so the deltas are dropped rather than added on top
+                    log.info("Stats were rebuilt by another instance, dropping local deltas");
+                    baseline = null;
+                    load();
+                } else {
+                    baseline = flushed;
+                }
+            } catch (Exception e) {
+                pending.addAll(drained);
+                log.warn("Could not flush stats: {}", e.getMessage());
+            }
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes every counter from the collections and replaces the stored values in one
+     * update that also starts a new generation. Deltas recorded before the aggregations
+     * start are held back and discarded once they succeed, since the aggregations count
+     * those writes; deltas recorded meanwhile stay pending for the next flush.
+     */
+    public StatsSnapshot rebuild() {
+        persistLock.lock();
+        try {
+            Deltas held = pending.drain();
+            try {
+                baseline = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(StatsSnapshot.GLOBAL_ID)),
+                        aggregate(),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        StatsSnapshot.class);
+            } catch (RuntimeException e) {
+                pending.addAll(held);
+                throw e;
+            }
+            return baseline;
+        } finally {
+            persistLock.unlock();
+        }
+    }
+
+    // $set of every counter, so later $inc flushes apply to the recomputed totals
+    private Update aggregate() {
+        AdminStatsService.ProviderTotals providers = adminStatsService.providerTotals();
+        AdminStatsService.UserTotals users = adminStatsService.userTotals();
+
+        Map<String, Long> bookings = new HashMap<>();
+        adminStatsService.bookingCountsByStatus().forEach((status, count) -> bookings.merge(fieldKey(status), count, Long::sum));
+        Map<String, Long> services = new HashMap<>();
+        providers.serviceBreakdown().forEach((service, count) -> services.merge(fieldKey(service), count, Long::sum));
+        return new Update()
+                .set("bookingsByStatus", bookings)
+                .set("totalUsers", users.total())
+                .set("enabledUsers", users.enabled())
+                .set("totalProviders", providers.total())
+                .set("availableProviders", providers.available())
+                .set("ratingSum", providers.ratingSum())
+                .set("serviceBreakdown", services)
+                .set("updatedAt", new Date())
+                .inc("generation", 1L);
+    }
+
+    // Documents written before generations existed have none, which reads as 0
+    private static Query sameGeneration(long generation) {
+        Criteria current = Criteria.where("generation").is(generation);
+        if (generation == 0) {
+            current = new Criteria().orOperator(current, Criteria.where("generation").exists(false));
+        }
+        return Query.query(Criteria.where("_id").is(StatsSnapshot.GLOBAL_ID).andOperator(current));
+    }
+
+    private StatsSnapshot current() {
+        StatsSnapshot base = baseline;
+        if (base == null) {
+            return null;
+        }
+        StatsSnapshot view = new StatsSnapshot();
+        view.setBookingsByStatus(new HashMap<>(base.getBookingsByStatus()));
+        view.setServiceBreakdown(new HashMap<>(base.getServiceBreakdown()));
+        view.setTotalUsers(base.getTotalUsers() + pending.totalUsers.sum());
+        view.setEnabledUsers(base.getEnabledUsers() + pending.enabledUsers.sum());
+        view.setTotalProviders(base.getTotalProviders() + pending.totalProviders.sum());
+        view.setAvailableProviders(base.getAvailableProviders() + pending.availableProviders.sum());
+        view.setRatingSum(base.getRatingSum() + pending.ratingSum.sum());
+        pending.bookingsByStatus.forEach((status, delta) ->
+                view.getBookingsByStatus().merge(status, delta.sum(), Long::sum));
+        pending.serviceBreakdown.forEach((service, delta) ->
+                view.getServiceBreakdown().merge(service, delta.sum(), Long::sum));
+        return view;
+    }
+
+    // Map keys become field paths in $inc, so '.' and a leading '$' cannot be stored as-is
+    private static String fieldKey(String value) {
+        return value == null ? "UNKNOWN" : value.replace('.', '_').replace('$', '_');
+    }
+
+    /** The fields of a provider that the counters depend on. */
+    public record ProviderFacts(String service, boolean available, double rating) {
+        public static ProviderFacts of(Provider provider) {
+            return new ProviderFacts(provider.getService(), provider.isAvailable(), provider.getRating());
+        }
+    }
+
+    private static final class Deltas {
+        private final Map<String, LongAdder> bookingsByStatus = new ConcurrentHashMap<>();
+        private final LongAdder totalUsers = new LongAdder();
+        private final LongAdder enabledUsers = new LongAdder();
+        private final LongAdder totalProviders = new LongAdder();
+        private final LongAdder availableProviders = new LongAdder();
+        private final DoubleAdder ratingSum = new DoubleAdder();
+        private final Map<String, LongAdder> serviceBreakdown = new ConcurrentHashMap<>();
+
+        void booking(String status, long delta) {
+            bookingsByStatus.computeIfAbsent(fieldKey(status), k -> new LongAdder()).add(delta);
+        }
+
+        void service(String service, long delta) {
+            serviceBreakdown.computeIfAbsent(fieldKey(service), k -> new LongAdder()).add(delta);
+        }
+
+        // Moves everything counted so far into a new instance; concurrent increments land
+        // in either this drain or the next one, never in neither
+        Deltas drain() {
+            Deltas drained = new Deltas();
+            bookingsByStatus.forEach((k, v) -> drained.booking(k, v.sumThenReset()));
+            serviceBreakdown.forEach((k, v) -> drained.serviceBreakdown
+                    .computeIfAbsent(k, key -> new LongAdder()).add(v.sumThenReset()));
+            drained.totalUsers.add(totalUsers.sumThenReset());
+            drained.enabledUsers.add(enabledUsers.sumThenReset());
+            drained.totalProviders.add(totalProviders.sumThenReset());
+            drained.availableProviders.add(availableProviders.sumThenReset());
+            drained.ratingSum.add(ratingSum.sumThenReset());
+            return drained;
+        }
+
+        void addAll(Deltas other) {
+            other.bookingsByStatus.forEach((k, v) -> booking(k, v.sum()));
+            other.serviceBreakdown.forEach((k, v) -> serviceBreakdown
+                    .computeIfAbsent(k, key -> new LongAdder()).add(v.sum()));
+            totalUsers.add(other.totalUsers.sum());
+            enabledUsers.add(other.enabledUsers.sum());
+            totalProviders.add(other.totalProviders.sum());
+            availableProviders.add(other.availableProviders.sum());
+            ratingSum.add(other.ratingSum.sum());
+        }
+
+        Update toUpdate() {
+            Update update = new Update();
+            bookingsByStatus.forEach((k, v) -> incIfNonZero(update, "bookingsByStatus." + k, v.sum()));
+            serviceBreakdown.forEach((k, v) -> incIfNonZero(update, "serviceBreakdown." + k, v.sum()));
+            incIfNonZero(update, "totalUsers", totalUsers.sum());
+            incIfNonZero(update, "enabledUsers", enabledUsers.sum());
+            incIfNonZero(update, "totalProviders", totalProviders.sum());
+            incIfNonZero(update, "availableProviders", availableProviders.sum());
+            double rating = ratingSum.sum();
+            if (rating != 0) {
+                update.inc("ratingSum", rating);
+            }
+            return update;
+        }
+
+        private static void incIfNonZero(Update update, String field, long delta) {
+            if (delta != 0) {
+                update.inc(field, delta);
+            }
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.fixnear.service;
 
+import com.fixnear.config.CacheConfig;
+import com.fixnear.dto.CursorPage;
 import com.fixnear.model.User;
 import com.fixnear.repository.UserRepository;
+import com.fixnear.security.RevokedUserCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,24 +17,49 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final RevokedUserCache revokedUserCache;
+    private final StatsService statsService;
+    private final Cache usersById;
+    private final Cache usersByEmail;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+                       RevokedUserCache revokedUserCache,
+                       StatsService statsService,
+                       CacheManager cacheManager) {
         this.userRepository = userRepository;
+        this.revokedUserCache = revokedUserCache;
+        this.statsService = statsService;
+        this.usersById = cacheManager.getCache(CacheConfig.USERS);
+        this.usersByEmail = cacheManager.getCache(CacheConfig.USERS_BY_EMAIL);
+    }
+
+    // Register a new user account
+    @SuppressWarnings("null")
+    public User createUser(User user) {
+        User saved = userRepository.save(user);
+        statsService.userCreated(saved.isEnabled());
+        evict(saved);
+        return saved;
     }
 
     // Get user by ID
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id")
     public Optional<User> getUserById(String id) {
         return userRepository.findById(id);
     }
 
     // Get user by email
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_EMAIL, key = "#email")
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
-    // Get all users
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    // Keyset page of users ordered by _id
+    public CursorPage<User> getUsersPage(String after, Integer limit) {
+        if (after == null || after.isEmpty()) {
+            return CursorPage.of(userRepository.findAllBy(CursorPage.request(limit)), User::getId);
+        }
+        return CursorPage.of(userRepository.findByIdGreaterThan(after, CursorPage.request(limit)), User::getId);
     }
 
     // Update user profile
@@ -36,16 +67,34 @@ public class UserService {
     public User updateUserProfile(String id, String name, String email) {
         return userRepository.findById(id)
                 .map(user -> {
+                    String previousEmail = user.getEmail();
                     user.setName(name);
                     user.setEmail(email);
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    evictEmail(previousEmail);
+                    evict(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // Replace the stored password hash (already encoded by the caller)
+    public User updatePassword(User user, String encodedPassword) {
+        user.setPassword(encodedPassword);
+        User saved = userRepository.save(user);
+        evict(saved);
+        return saved;
+    }
+
     // Delete user
+    @SuppressWarnings("null")
     public void deleteUser(String id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            userRepository.deleteById(id);
+            revokedUserCache.userDeleted(id);
+            statsService.userDeleted(user.isEnabled());
+            evict(user);
+        });
     }
 
     // Enable/Disable user
@@ -53,8 +102,13 @@ public class UserService {
     public User toggleUserStatus(String id, boolean enabled) {
         return userRepository.findById(id)
                 .map(user -> {
+                    boolean previous = user.isEnabled();
                     user.setEnabled(enabled);
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    revokedUserCache.userStatusChanged(id, enabled);
+                    statsService.userStatusChanged(previous, enabled);
+                    evict(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
@@ -65,4 +119,18 @@ public class UserService {
                 .map(user -> user.getRoles() != null && user.getRoles().contains(role))
                 .orElse(false);
     }
+
+    // Drop the cached lookups that could return this user
+    private void evict(User user) {
+        if (user.getId() != null) {
+            usersById.evict(user.getId());
+        }
+        evictEmail(user.getEmail());
+    }
+
+    private void evictEmail(String email) {
+        if (email != null) {
+            usersByEmail.evict(email);
+        }
+    }
 }
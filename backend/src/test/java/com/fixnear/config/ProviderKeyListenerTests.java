@@ -0,0 +1,64 @@
+package com.fixnear.config;
+
+import com.fixnear.model.Provider;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The startup key backfill of {@link ProviderKeyListener}: stored keys must equal what
+ * ProviderSearchIndex.normalize computes at query time, including for blank and non-ASCII values.
+ */
+class ProviderKeyListenerTests {
+
+    @Test
+    void backfillWritesOnlyKeysThatDifferFromNormalize() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Provider.class))).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(Provider.class))).thenReturn(List.of(
+                provider("1", " \u00c9LECTRICIT\u00c9\u2003", "\u0130stanbul", null, null),
+                provider("2", "Plumbing", "   ", "plumbing", ""),
+                provider("3", "Plumbing", "Boston", "plumbing", "boston")));
+
+        new ProviderKeyListener(mongoTemplate).backfillKeys();
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).updateOne(any(Query.class), updates.capture());
+        Document first = (Document) updates.getAllValues().get(0).getUpdateObject().get("$set");
+        // Unicode lower-casing, and String.trim() keeps the em space just as queries do
+        assertEquals("\u00e9lectricit\u00e9\u2003", first.get("serviceKey"));
+        assertEquals("i\u0307stanbul", first.get("locationKey"));
+        Document second = (Document) updates.getAllValues().get(1).getUpdateObject().get("$set");
+        assertEquals("plumbing", second.get("serviceKey"));
+        assertNull(second.get("locationKey"));
+        assertEquals(true, second.containsKey("locationKey"));
+    }
+
+    private static Provider provider(String id, String service, String location, String serviceKey, String locationKey) {
+        Provider provider = new Provider();
+        provider.setId(id);
+        provider.setService(service);
+        provider.setLocation(location);
+        provider.setServiceKey(serviceKey);
+        provider.setLocationKey(locationKey);
+        return provider;
+    }
+}
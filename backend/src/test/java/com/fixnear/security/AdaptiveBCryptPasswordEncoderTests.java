@@ -0,0 +1,61 @@
+package com.fixnear.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost calibration bounds of {@link AdaptiveBCryptPasswordEncoder} and the hash prefix
+ * parsing behind upgradeEncoding. Costs are kept at BCrypt's minimum of 4 so each hash is cheap.
+ */
+class AdaptiveBCryptPasswordEncoderTests {
+
+    @Test
+    void calibrationStaysWithinTheConfiguredCosts() {
+        // No hash fits a zero budget, so the floor wins
+        assertEquals(4, new AdaptiveBCryptPasswordEncoder(0, 4, 6).getCost());
+        // Every hash fits an unbounded budget, so the ceiling wins
+        assertEquals(6, new AdaptiveBCryptPasswordEncoder(Long.MAX_VALUE, 4, 6).getCost());
+        assertEquals(5, new AdaptiveBCryptPasswordEncoder(Long.MAX_VALUE, 5, 5).getCost());
+    }
+
+    @Test
+    void upgradeEncodingReportsOnlyBCryptHashesBelowTheCurrentCost() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(0, 5, 5);
+        String hash = "$2a$04$abcdefghijklmnopqrstuu5s2v8.iXieOjg/.AySBTTZIIVFJeBui";
+
+        assertTrue(encoder.upgradeEncoding(hash));
+        assertTrue(encoder.upgradeEncoding("$2b$04$" + hash.substring(7)));
+        assertTrue(encoder.upgradeEncoding("$2y$04$" + hash.substring(7)));
+        assertTrue(encoder.upgradeEncoding("$2$04$" + hash.substring(7)));
+        assertFalse(encoder.upgradeEncoding("$2a$05$" + hash.substring(7)));
+        assertFalse(encoder.upgradeEncoding("$2a$12$" + hash.substring(7)));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+    }
+
+    @Test
+    void upgradeEncodingIgnoresWhatIsNotABCryptPrefix() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(0, 5, 5);
+
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding(""));
+        assertFalse(encoder.upgradeEncoding("plain-text"));
+        assertFalse(encoder.upgradeEncoding("$2x$04$abc"));
+        assertFalse(encoder.upgradeEncoding("$2a$4$abc"));
+        // The prefix must start the string
+        assertFalse(encoder.upgradeEncoding("{bcrypt}$2a$04$abc"));
+    }
+
+    @Test
+    void hashesOfAnyCostStillVerify() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(0, 5, 5);
+        String older = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertTrue(encoder.matches("secret", older));
+        assertFalse(encoder.matches("wrong", older));
+        assertTrue(encoder.encode("secret").startsWith("$2a$05$"));
+    }
+}
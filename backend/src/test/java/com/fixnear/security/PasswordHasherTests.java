@@ -0,0 +1,142 @@
+package com.fixnear.security;
+
+import com.fixnear.exception.GlobalExceptionHandler;
+import com.fixnear.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Back-pressure of {@link PasswordHasher} with one worker and a queue of one: rejection,
+ * the timeout, the Retry-After estimate and its mapping to a 503. The encoder blocks on a
+ * latch so the tests decide when the worker is busy.
+ */
+class PasswordHasherTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingEncoder encoder = new BlockingEncoder();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        encoder.release.countDown();
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueIsRejectedWithABacklogRetryAfter() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 1, 10_000);
+        // One past hash of 3s: a busy worker plus one queued task drain in 6s
+        meterRegistry.timer("fixnear.hashing.duration", "operation", "encode").record(Duration.ofSeconds(3));
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> hasher.matches("a", "hash"));
+        assertTrue(encoder.started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> hasher.matches("b", "hash"));
+        awaitQueueDepth(1);
+
+        ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class,
+                () -> hasher.matches("c", "hash"));
+        assertEquals(6, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("fixnear.hashing.rejected").counter().count());
+
+        encoder.release.countDown();
+        assertTrue(running.get(10, TimeUnit.SECONDS));
+        assertTrue(queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowHashTimesOutAsOverloadedAndFreesTheWorker() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 1, 50);
+
+        ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class,
+                () -> hasher.encode("secret"));
+        assertEquals("Sign-in is taking too long, please retry shortly", e.getMessage());
+        // Nothing measured yet, so the estimate falls back to its floor
+        assertEquals(1, e.getRetryAfterSeconds());
+        assertTrue(encoder.interrupted.await(10, TimeUnit.SECONDS));
+
+        encoder.release.countDown();
+        assertEquals("encoded:next", hasher.encode("next"));
+    }
+
+    @Test
+    void encoderFailuresReachTheCallerUnchanged() {
+        IllegalArgumentException failure = new IllegalArgumentException("Encoded password does not look like BCrypt");
+        encoder.failure = failure;
+        encoder.release.countDown();
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 1, 10_000);
+
+        assertSame(failure, assertThrows(IllegalArgumentException.class, () -> hasher.matches("a", "hash")));
+    }
+
+    @Test
+    void overloadIsAnsweredWith503AndRetryAfter() {
+        ResponseEntity<Map<String, String>> response = new GlobalExceptionHandler()
+                .handleOverloaded(new ServiceOverloadedException("Too many sign-in requests", 7));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(Map.of("error", "Too many sign-in requests"), response.getBody());
+    }
+
+    private void awaitQueueDepth(double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queueDepth() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertEquals(expected, queueDepth());
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("fixnear.hashing.queue.depth").gauge().value();
+    }
+
+    private static final class BlockingEncoder implements PasswordEncoder {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        volatile RuntimeException failure;
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "encoded:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return true;
+        }
+
+        private void await() {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.fixnear.security;
+
+import com.fixnear.model.User;
+import com.fixnear.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Refreshes of {@link RevokedUserCache} against a mocked repository, including local status
+ * changes that land while the disabled-users snapshot is being read.
+ */
+class RevokedUserCacheTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final RevokedUserCache cache = new RevokedUserCache(userRepository);
+
+    @Test
+    void refreshFollowsChangesMadeElsewhere() {
+        when(userRepository.findByEnabledFalse()).thenReturn(List.of(user("remote")));
+        cache.refresh();
+        assertTrue(cache.isRevoked("remote"));
+
+        cache.userStatusChanged("local", false);
+        when(userRepository.findByEnabledFalse()).thenReturn(List.of());
+        cache.refresh();
+        // Both were re-enabled before this snapshot was read
+        assertFalse(cache.isRevoked("remote"));
+        assertFalse(cache.isRevoked("local"));
+    }
+
+    @Test
+    void userDisabledHereDuringTheSnapshotStaysRevoked() {
+        when(userRepository.findByEnabledFalse()).thenAnswer(invocation -> {
+            cache.userStatusChanged("u1", false);
+            return List.of();
+        });
+        cache.refresh();
+        assertTrue(cache.isRevoked("u1"));
+
+        // The next snapshot sees the change and takes over
+        when(userRepository.findByEnabledFalse()).thenReturn(List.of(user("u1")));
+        cache.refresh();
+        assertTrue(cache.isRevoked("u1"));
+    }
+
+    @Test
+    void userEnabledHereDuringTheSnapshotIsNotRevokedAgain() {
+        cache.userStatusChanged("u1", false);
+        when(userRepository.findByEnabledFalse()).thenAnswer(invocation -> {
+            cache.userStatusChanged("u1", true);
+            return List.of(user("u1"));
+        });
+        cache.refresh();
+        assertFalse(cache.isRevoked("u1"));
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
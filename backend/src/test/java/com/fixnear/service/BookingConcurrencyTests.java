@@ -0,0 +1,116 @@
+package com.fixnear.service;
+
+import com.fixnear.exception.SlotUnavailableException;
+import com.fixnear.model.Booking;
+import com.fixnear.model.SlotClaim;
+import com.fixnear.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fires many simultaneous bookings for one provider slot through several independent
+ * BookingService instances, standing in for separate backend nodes. They share only the
+ * slot_claims collection, emulated here with the unique-_id semantics of a Mongo insert.
+ */
+class BookingConcurrencyTests {
+
+    private static final int INSTANCES = 20;
+    private static final int REQUESTS = 400;
+
+    private final Map<String, SlotClaim> claims = new ConcurrentHashMap<>();
+
+    @Test
+    void exactlyOneConcurrentBookingWinsASlot() throws Exception {
+        List<BookingService> instances = new ArrayList<>();
+        for (int i = 0; i < INSTANCES; i++) {
+            instances.add(newInstance());
+        }
+        Date slot = java.sql.Timestamp.valueOf(LocalDate.now().plusDays(3).atTime(10, 0));
+
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            BookingService service = instances.get(i % INSTANCES);
+            String userId = "user-" + i;
+            results.add(pool.submit(() -> {
+                start.await();
+                Booking booking = new Booking();
+                booking.setUserId(userId);
+                booking.setProviderId("provider-1");
+                booking.setBookingDate(slot);
+                try {
+                    return service.createBooking(booking);
+                } catch (SlotUnavailableException e) {
+                    conflicts.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+
+        List<Booking> winners = new ArrayList<>();
+        for (Future<Booking> result : results) {
+            Booking booking = result.get(30, TimeUnit.SECONDS);
+            if (booking != null) {
+                winners.add(booking);
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, winners.size());
+        assertEquals(REQUESTS - 1, conflicts.get());
+        // A 60-minute booking holds two 30-minute slots, both owned by the winner
+        assertEquals(2, claims.size());
+        String winnerId = winners.get(0).getId();
+        assertTrue(claims.values().stream().allMatch(c -> winnerId.equals(c.getBookingId())));
+    }
+
+    private BookingService newInstance() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), any())).thenReturn(List.of());
+        when(mongoTemplate.insert(any(SlotClaim.class))).thenAnswer(invocation -> {
+            SlotClaim claim = invocation.getArgument(0);
+            if (claims.putIfAbsent(claim.getId(), claim) != null) {
+                throw new DuplicateKeyException("E11000 duplicate key error: " + claim.getId());
+            }
+            return claim;
+        });
+        when(mongoTemplate.remove(any(Query.class), eq(SlotClaim.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            String bookingId = query.getQueryObject().getString("bookingId");
+            claims.values().removeIf(c -> bookingId.equals(c.getBookingId()));
+            return null;
+        });
+
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SlotEngine slotEngine = new SlotEngine(mongoTemplate, 60, 60000);
+        return new BookingService(bookingRepository, mock(StatsService.class), slotEngine,
+                new SlotClaimService(mongoTemplate, slotEngine), event -> { });
+    }
+}
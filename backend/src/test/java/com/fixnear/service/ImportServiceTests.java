@@ -0,0 +1,245 @@
+package com.fixnear.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixnear.model.Availability;
+import com.fixnear.model.Booking;
+import com.fixnear.model.Provider;
+import com.fixnear.model.User;
+import com.fixnear.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The CSV and NDJSON readers behind {@link ImportService}, their record size limit, and the
+ * per-batch checks on provider userIds and booking slots against a mocked MongoTemplate.
+ */
+class ImportServiceTests {
+
+    private static final int MAX_CHARS = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvHandlesQuotesEmbeddedLineBreaksCrLfAndByteOrderMark() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        List<ImportService.Record> records = readAll(new ImportService.CsvRecordReader(reader(
+                "\uFEFFname,notes\r\n"
+                        + "\"Smith, \"\"Bob\"\"\",plain\r\n"
+                        + "second,\"two\nlines\"\n"
+                        + "\n"
+                        + "third,\r\n"), MAX_CHARS), report);
+
+        assertEquals(3, records.size());
+        assertEquals(Map.of("name", "Smith, \"Bob\"", "notes", "plain"), records.get(0).fields());
+        assertEquals(2, records.get(0).line());
+        assertEquals(Map.of("name", "second", "notes", "two\nlines"), records.get(1).fields());
+        assertEquals(3, records.get(1).line());
+        // The quoted line break moves the next record to line 6, after the blank line 5
+        assertEquals(6, records.get(2).line());
+        assertEquals("", records.get(2).fields().get("notes"));
+        assertEquals(0, report.rejected);
+    }
+
+    @Test
+    void csvReportsRowsWithTheWrongFieldCountAndKeepsGoing() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        List<ImportService.Record> records = readAll(new ImportService.CsvRecordReader(reader(
+                "a,b\n1,2,3\n4,5\n"), MAX_CHARS), report);
+
+        assertEquals(1, records.size());
+        assertEquals(3, records.get(0).line());
+        assertEquals(List.of(new ImportService.LineError(2, "expected 2 fields, found 3")), report.errors);
+        assertEquals(1, report.received);
+    }
+
+    @Test
+    void csvReportsAnUnterminatedQuoteOnTheLineItStarts() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        List<ImportService.Record> records = readAll(new ImportService.CsvRecordReader(reader(
+                "a,b\n1,2\n3,\"open\nnever closed\n"), MAX_CHARS), report);
+
+        assertEquals(1, records.size());
+        assertEquals(List.of(new ImportService.LineError(3, "unterminated quoted field")), report.errors);
+    }
+
+    @Test
+    void csvWithoutRowsHasNoRecords() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        assertEquals(List.of(), readAll(new ImportService.CsvRecordReader(reader(""), MAX_CHARS), report));
+        assertEquals(List.of(), readAll(new ImportService.CsvRecordReader(reader("a,b\r\n"), MAX_CHARS), report));
+    }
+
+    @Test
+    void ndjsonFlattensObjectsSkipsBlankLinesAndReportsBadOnes() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        List<ImportService.Record> records = readAll(new ImportService.NdjsonRecordReader(reader(
+                "{\"name\":\"A\",\"price\":50,\"available\":true,\"userId\":null,"
+                        + "\"coordinates\":{\"type\":\"Point\",\"coordinates\":[-71.0,42.3]}}\n"
+                        + "\n"
+                        + "not json\n"
+                        + "[1,2]\n"
+                        + "{\"name\":\"B\"}\n"), objectMapper, MAX_CHARS), report);
+
+        assertEquals(2, records.size());
+        Map<String, String> first = records.get(0).fields();
+        assertEquals("A", first.get("name"));
+        assertEquals("50", first.get("price"));
+        assertEquals("true", first.get("available"));
+        assertNull(first.get("userId"));
+        assertEquals("{\"type\":\"Point\",\"coordinates\":[-71.0,42.3]}", first.get("coordinates"));
+        assertEquals(1, records.get(0).line());
+        assertEquals(5, records.get(1).line());
+        assertEquals(List.of(3L, 4L), report.errors.stream().map(ImportService.LineError::line).toList());
+        assertEquals(2, report.received);
+    }
+
+    @Test
+    void csvSkipsRecordsLongerThanTheLimitWithoutHoldingThem() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        String huge = "x".repeat(5000);
+        List<ImportService.Record> records = readAll(new ImportService.CsvRecordReader(reader(
+                "a,b\n" + huge + "\"x,1\n\"" + huge + "\n" + huge + "\",2\nok,3\n"), 1000), report);
+
+        assertEquals(1, records.size());
+        assertEquals(Map.of("a", "ok", "b", "3"), records.get(0).fields());
+        assertEquals(5, records.get(0).line());
+        assertEquals(List.of(new ImportService.LineError(2, "record longer than 1000 characters"),
+                new ImportService.LineError(3, "record longer than 1000 characters")), report.errors);
+    }
+
+    @Test
+    void csvUnterminatedQuoteOverTheLimitStillEndsTheImport() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        List<ImportService.Record> records = readAll(new ImportService.CsvRecordReader(reader(
+                "a,b\n1,\"" + "x\n".repeat(3000)), 1000), report);
+
+        assertEquals(List.of(), records);
+        assertEquals(List.of(new ImportService.LineError(2, "unterminated quoted field")), report.errors);
+    }
+
+    @Test
+    void ndjsonSkipsLinesLongerThanTheLimit() throws IOException {
+        ImportService.Report report = new ImportService.Report(10);
+        List<ImportService.Record> records = readAll(new ImportService.NdjsonRecordReader(reader(
+                "{\"name\":\"" + "x".repeat(5000) + "\"}\r\n{\"name\":\"B\"}\r\n"), objectMapper, 1000), report);
+
+        assertEquals(1, records.size());
+        assertEquals(2, records.get(0).line());
+        assertEquals(List.of(new ImportService.LineError(1, "record longer than 1000 characters")), report.errors);
+    }
+
+    @Test
+    void bookingsConflictingWithStoredBookingsWithoutClaimsAreRejected() throws IOException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        LocalDateTime start = LocalDate.now().plusDays(3).atTime(10, 0);
+        Booking stored = new Booking();
+        stored.setId("legacy");
+        stored.setProviderId("p1");
+        stored.setBookingDate(Timestamp.valueOf(start));
+        when(mongoTemplate.find(any(Query.class), eq(Booking.class))).thenReturn(List.of(stored));
+        when(mongoTemplate.find(any(Query.class), eq(Availability.class))).thenReturn(List.of());
+        Provider provider = provider(null);
+        provider.setId("p1");
+        when(mongoTemplate.find(any(Query.class), eq(Provider.class))).thenReturn(List.of(provider));
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user("u1")));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Booking.class))).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        SlotClaimService slotClaimService = mock(SlotClaimService.class);
+        when(slotClaimService.claimAll(anyList())).thenReturn(Set.of());
+
+        SlotEngine slotEngine = new SlotEngine(mongoTemplate, 60, 60000);
+        BookingService bookingService = new BookingService(mock(BookingRepository.class), mock(StatsService.class),
+                slotEngine, slotClaimService, mock(ApplicationEventPublisher.class));
+        ImportService importService = new ImportService(mongoTemplate, objectMapper, mock(ProviderService.class),
+                bookingService, 100, 100, DataSize.ofKilobytes(64));
+        String csv = "userId,providerId,bookingDate,status\n"
+                + "u1,p1," + start.plusMinutes(30) + ",PENDING\n"
+                + "u1,p1," + start.plusHours(1) + ",PENDING\n"
+                + "u1,p1," + start.minusMinutes(30) + ",CANCELLED\n";
+        ImportService.ImportResult result = importService.importBookings(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "csv", null);
+
+        assertEquals(2, result.imported());
+        assertEquals(List.of(new ImportService.LineError(2, "slot already booked for provider p1")), result.errors());
+    }
+
+    @Test
+    void providersNeedAnExistingUserWithoutAProfile() throws IOException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user("u1"), user("u2")));
+        when(mongoTemplate.find(any(Query.class), eq(Provider.class))).thenReturn(List.of(provider("u2")));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Provider.class))).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+
+        ImportService importService = new ImportService(mongoTemplate, objectMapper, mock(ProviderService.class),
+                mock(BookingService.class), 100, 100, DataSize.ofKilobytes(64));
+        String csv = "userId,name,service,location\n"
+                + "u1,First,Plumbing,Boston\n"
+                + "u1,Again,Plumbing,Boston\n"
+                + "u2,Taken,Plumbing,Boston\n"
+                + "u3,Nobody,Plumbing,Boston\n"
+                + ",Unlinked,Plumbing,Boston\n";
+        ImportService.ImportResult result = importService.importProviders(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "csv", null);
+
+        assertEquals(5, result.received());
+        assertEquals(2, result.imported());
+        assertEquals(List.of(
+                new ImportService.LineError(3, "user u1 already has a provider profile"),
+                new ImportService.LineError(4, "user u2 already has a provider profile"),
+                new ImportService.LineError(5, "user u3 not found")), result.errors());
+    }
+
+    private static List<ImportService.Record> readAll(ImportService.RecordReader records, ImportService.Report report)
+            throws IOException {
+        List<ImportService.Record> all = new ArrayList<>();
+        ImportService.Record record;
+        while ((record = records.next(report)) != null) {
+            all.add(record);
+        }
+        return all;
+    }
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Provider provider(String userId) {
+        Provider provider = new Provider();
+        provider.setUserId(userId);
+        return provider;
+    }
+}
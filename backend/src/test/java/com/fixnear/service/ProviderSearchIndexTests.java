@@ -0,0 +1,209 @@
+package com.fixnear.service;
+
+import com.fixnear.dto.NearbyProvider;
+import com.fixnear.model.Provider;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Posting-list search, the geohash ring walk of {@code nearby()} checked against a brute
+ * force scan, and rebuilds that overlap each other or writes.
+ */
+class ProviderSearchIndexTests {
+
+    @Test
+    void intersectsServiceAndLocationPostings() {
+        ProviderSearchIndex index = new ProviderSearchIndex();
+        index.rebuild(() -> List.of(
+                provider("1", "Plumbing", "Boston"),
+                provider("2", "Plumbing", "Denver"),
+                provider("3", "Electrical", "Boston"),
+                provider("4", " plumbing ", "BOSTON")));
+
+        assertEquals(List.of("1", "4"), ids(index.search("PLUMBING", "boston")));
+        assertEquals(List.of("1", "2", "4"), ids(index.search("plumbing", null)));
+        assertEquals(List.of("1", "3", "4"), ids(index.search(" ", "Boston")));
+        assertEquals(List.of(), ids(index.search("Roofing", "Boston")));
+        assertEquals(4, index.search(null, null).size());
+    }
+
+    @Test
+    void putMovesAProviderBetweenPostingsAndRemoveDropsIt() {
+        ProviderSearchIndex index = new ProviderSearchIndex();
+        index.rebuild(() -> List.of(provider("1", "Plumbing", "Boston"), provider("2", "Plumbing", "Boston")));
+
+        index.put(provider("1", "Electrical", "Boston"));
+        assertEquals(List.of("2"), ids(index.search("plumbing", "boston")));
+        assertEquals(List.of("1"), ids(index.search("electrical", null)));
+
+        index.remove("2");
+        assertEquals(List.of(), ids(index.search("plumbing", null)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void postingListIntersectionKeepsCommonOrdinalsInOrder() {
+        ProviderSearchIndex.PostingList a = new ProviderSearchIndex.PostingList();
+        ProviderSearchIndex.PostingList b = new ProviderSearchIndex.PostingList();
+        for (int ordinal : new int[]{9, 1, 5, 3, 7, 5}) {
+            a.add(ordinal);
+        }
+        for (int ordinal : new int[]{2, 3, 9, 4, 5}) {
+            b.add(ordinal);
+        }
+        ProviderSearchIndex.PostingList both = ProviderSearchIndex.PostingList.intersect(a, b);
+        assertTrue(both.contains(3) && both.contains(5) && both.contains(9));
+        assertFalse(both.contains(1) || both.contains(2));
+        assertFalse(ProviderSearchIndex.PostingList.intersect(a, null).contains(3));
+    }
+
+    @Test
+    void pagesWalkMatchesInIdOrderFromTheCursor() {
+        Random random = new Random(11);
+        List<Provider> providers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Dense and sparse services, inserted out of id order
+            String id = String.format("%04x", random.nextInt(0x10000));
+            providers.add(provider(id, i % 50 == 0 ? "Roofing" : i % 2 == 0 ? "Plumbing" : "Electrical",
+                    i % 3 == 0 ? "Boston" : "Denver"));
+        }
+        ProviderSearchIndex index = new ProviderSearchIndex();
+        index.rebuild(() -> providers);
+
+        for (String service : new String[]{null, "plumbing", "roofing", "gardening"}) {
+            for (String location : new String[]{null, "boston"}) {
+                List<String> expected = ids(index.search(service, location));
+                List<String> paged = new ArrayList<>();
+                String after = null;
+                List<Provider> page;
+                do {
+                    page = index.searchPage(service, location, after, 7);
+                    paged.addAll(page.stream().map(Provider::getId).toList());
+                    after = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+                } while (page.size() == 7);
+                assertEquals(expected, paged, "service " + service + ", location " + location);
+            }
+        }
+        assertEquals(List.of(), index.searchPage("plumbing", null, "ffff", 7));
+    }
+
+    @Test
+    void nearbyMatchesABruteForceScan() {
+        Random random = new Random(7);
+        List<Provider> providers = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Provider provider = provider(String.valueOf(i), i % 3 == 0 ? "Plumbing" : "Electrical", "Boston");
+            provider.setCoordinates(new GeoJsonPoint(-71.06 + (random.nextDouble() - 0.5) * 2,
+                    42.36 + (random.nextDouble() - 0.5) * 2));
+            providers.add(provider);
+        }
+        ProviderSearchIndex index = new ProviderSearchIndex();
+        index.rebuild(() -> providers);
+
+        for (double radiusKm : new double[]{1, 8, 30, 200}) {
+            for (String service : new String[]{null, "plumbing"}) {
+                for (int limit : new int[]{1, 10, 5000}) {
+                    assertEquals(bruteForce(providers, 42.36, -71.06, radiusKm, service, limit),
+                            closestFirst(index.nearby(42.36, -71.06, radiusKm, service, limit)),
+                            "radius " + radiusKm + ", service " + service + ", limit " + limit);
+                }
+            }
+        }
+        assertEquals(List.of(), index.nearby(42.36, -71.06, 50, "Roofing", 10));
+    }
+
+    @Test
+    void nearbyFindsProvidersAcrossTheAntimeridian() {
+        Provider east = provider("east", "Plumbing", "Fiji");
+        east.setCoordinates(new GeoJsonPoint(179.99, -17.0));
+        Provider west = provider("west", "Plumbing", "Fiji");
+        west.setCoordinates(new GeoJsonPoint(-179.98, -17.0));
+        ProviderSearchIndex index = new ProviderSearchIndex();
+        index.rebuild(() -> List.of(east, west));
+
+        assertEquals(List.of("east", "west"), closestFirst(index.nearby(-17.0, 179.995, 5, null, 10)));
+    }
+
+    @Test
+    void overlappingRebuildIsSkippedAndWritesDuringALoadSurviveTheSwap() throws Exception {
+        ProviderSearchIndex index = new ProviderSearchIndex();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> index.rebuild(() -> {
+            loading.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(provider("1", "Plumbing", "Boston"), provider("2", "Plumbing", "Boston"));
+        }));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        index.put(provider("3", "Plumbing", "Boston"));
+        index.remove("2");
+        assertFalse(index.rebuild(List::of));
+        release.countDown();
+
+        assertTrue(first.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("1", "3"), ids(index.search("plumbing", null)));
+    }
+
+    @Test
+    void failedLoadKeepsTheOldContentsAndStopsQueueingWrites() {
+        ProviderSearchIndex index = new ProviderSearchIndex();
+        index.rebuild(() -> List.of(provider("1", "Plumbing", "Boston")));
+
+        assertThrows(IllegalStateException.class, () -> index.rebuild(() -> {
+            throw new IllegalStateException("Mongo down");
+        }));
+        index.put(provider("2", "Plumbing", "Boston"));
+        assertEquals(List.of("1", "2"), ids(index.search("plumbing", null)));
+        assertTrue(index.rebuild(() -> List.of(provider("4", "Plumbing", "Boston"))));
+        assertEquals(List.of("4"), ids(index.search("plumbing", null)));
+    }
+
+    private static List<String> bruteForce(List<Provider> providers, double lat, double lng, double radiusKm,
+                                           String service, int limit) {
+        return providers.stream()
+                .filter(p -> service == null || p.getService().equalsIgnoreCase(service))
+                .filter(p -> distance(p, lat, lng) <= radiusKm)
+                .sorted(Comparator.comparingDouble(p -> distance(p, lat, lng)))
+                .limit(limit)
+                .map(Provider::getId)
+                .toList();
+    }
+
+    private static double distance(Provider provider, double lat, double lng) {
+        return GeoHashGrid.distanceKm(lat, lng, provider.getCoordinates().getY(), provider.getCoordinates().getX());
+    }
+
+    private static List<String> closestFirst(List<NearbyProvider> nearby) {
+        return nearby.stream().map(n -> n.getProvider().getId()).toList();
+    }
+
+    private static List<String> ids(List<Provider> providers) {
+        return providers.stream().map(Provider::getId).sorted().toList();
+    }
+
+    private static Provider provider(String id, String service, String location) {
+        Provider provider = new Provider();
+        provider.setId(id);
+        provider.setService(service);
+        provider.setLocation(location);
+        return provider;
+    }
+}
@@ -0,0 +1,173 @@
+package com.fixnear.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Collapsed, cached, failed and forgotten flights of {@link SingleFlight}. Loaders block on
+ * latches so the tests decide exactly which calls overlap.
+ */
+class SingleFlightTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallsForOneKeyShareOneExecution() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>("test", 0, meterRegistry);
+        BlockingLoader loader = new BlockingLoader();
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.get("k", loader));
+        assertTrue(loader.started.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flights.get("k", loader));
+        awaitCount("collapsed", 1);
+        loader.release.countDown();
+
+        assertEquals("value-1", leader.get(10, TimeUnit.SECONDS));
+        assertEquals("value-1", follower.get(10, TimeUnit.SECONDS));
+        assertEquals(1, loader.calls.get());
+        assertEquals(1, count("executed"));
+        // Without a window nothing is kept once the flight lands
+        Counting after = new Counting();
+        assertEquals("counted-1", flights.get("k", after::get));
+        assertEquals(1, after.calls.get());
+    }
+
+    @Test
+    void windowKeepsAnsweringUntilItExpires() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>("test", 60_000, meterRegistry);
+        Counting loader = new Counting();
+        assertEquals("counted-1", flights.get("k", loader::get));
+        assertEquals("counted-1", flights.get("k", loader::get));
+        assertEquals("counted-1", flights.get("k", loader::get));
+        assertEquals("counted-2", flights.get("other", loader::get));
+        assertEquals(2, count("cached"));
+
+        SingleFlight<String, String> expiring = new SingleFlight<>("expiring", 1, meterRegistry);
+        Counting second = new Counting();
+        expiring.get("k", second::get);
+        TimeUnit.MILLISECONDS.sleep(5);
+        assertEquals("counted-2", expiring.get("k", second::get));
+    }
+
+    @Test
+    void failureReachesEveryWaiterAndIsNotKept() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>("test", 60_000, meterRegistry);
+        IllegalStateException failure = new IllegalStateException("Mongo down");
+        BlockingLoader loader = new BlockingLoader(failure);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.get("k", loader));
+        assertTrue(loader.started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flights.get("k", loader));
+        awaitCount("collapsed", 1);
+        loader.release.countDown();
+
+        assertSame(failure, cause(leader));
+        assertSame(failure, cause(follower));
+        assertEquals("counted-1", flights.get("k", new Counting()::get));
+    }
+
+    @Test
+    void forgetDropsCachedResults() {
+        SingleFlight<String, String> flights = new SingleFlight<>("test", 60_000, meterRegistry);
+        Counting loader = new Counting();
+        flights.get("k", loader::get);
+        flights.forget();
+        assertEquals("counted-2", flights.get("k", loader::get));
+    }
+
+    @Test
+    void forgetDuringAFlightKeepsItsResultFromLaterCallers() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>("test", 60_000, meterRegistry);
+        BlockingLoader loader = new BlockingLoader();
+        CompletableFuture<String> before = CompletableFuture.supplyAsync(() -> flights.get("k", loader));
+        assertTrue(loader.started.await(10, TimeUnit.SECONDS));
+
+        flights.forget();
+        // Arrives after the write: runs its own load instead of joining the stale one
+        Counting fresh = new Counting();
+        assertEquals("counted-1", flights.get("k", fresh::get));
+
+        loader.release.countDown();
+        assertEquals("value-1", before.get(10, TimeUnit.SECONDS));
+        // The stale result was handed back but not cached over the fresh one
+        assertEquals("counted-1", flights.get("k", fresh::get));
+        assertEquals(1, fresh.calls.get());
+
+        BlockingLoader second = new BlockingLoader();
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> flights.get("j", second));
+        assertTrue(second.started.await(10, TimeUnit.SECONDS));
+        flights.forget();
+        second.release.countDown();
+        running.get(10, TimeUnit.SECONDS);
+        assertEquals("counted-2", flights.get("j", fresh::get));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("fixnear.singleflight.calls").tag("name", "test").tag("result", result)
+                .counter().count();
+    }
+
+    private void awaitCount(String result, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count(result) < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertEquals(expected, count(result));
+    }
+
+    private static Throwable cause(CompletableFuture<String> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        return e.getCause();
+    }
+
+    private static final class Counting {
+        final AtomicInteger calls = new AtomicInteger();
+
+        String get() {
+            return "counted-" + calls.incrementAndGet();
+        }
+    }
+
+    private static final class BlockingLoader implements Supplier<String> {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        private final RuntimeException failure;
+
+        BlockingLoader() {
+            this(null);
+        }
+
+        BlockingLoader(RuntimeException failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public String get() {
+            int call = calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return "value-" + call;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.fixnear.service;
+
+import com.fixnear.model.Availability;
+import com.fixnear.model.Booking;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Slot arithmetic of {@link SlotEngine} with 60-minute bookings over 30-minute slots,
+ * against a mocked MongoTemplate that supplies only the availability windows.
+ */
+class SlotEngineTests {
+
+    private static final String PROVIDER = "provider-1";
+
+    private final LocalDate day = LocalDate.now().plusDays(10);
+    private final long epochDay = day.toEpochDay();
+
+    @Test
+    void alignedStartHoldsItsTwoSlots() {
+        SlotEngine engine = engine(List.of());
+        assertEquals(List.of(slot(epochDay, 20), slot(epochDay, 21)),
+                engine.slotIds(booking("a", day.atTime(10, 0))));
+    }
+
+    @Test
+    void offGridStartAlsoHoldsTheSlotItsEndFallsInto() {
+        SlotEngine engine = engine(List.of());
+        Booking first = booking("a", day.atTime(10, 15));
+        assertEquals(List.of(slot(epochDay, 20), slot(epochDay, 21), slot(epochDay, 22)), engine.slotIds(first));
+
+        assertTrue(engine.tryReserve(first));
+        // 10:15-11:15 overlaps a booking at 11:00, not one at 11:30
+        assertFalse(engine.tryReserve(booking("b", day.atTime(11, 0))));
+        assertFalse(engine.tryReserve(booking("c", day.atTime(9, 30))));
+        assertTrue(engine.tryReserve(booking("d", day.atTime(11, 30))));
+    }
+
+    @Test
+    void bookingPastMidnightSplitsOverTwoDays() {
+        SlotEngine engine = engine(List.of());
+        assertEquals(List.of(slot(epochDay, 47), slot(epochDay + 1, 0)),
+                engine.slotIds(booking("a", day.atTime(23, 30))));
+    }
+
+    @Test
+    void freeSlotsListsStartsThatRunPastMidnightAndAgreesWithTryReserve() {
+        SlotEngine engine = engine(List.of());
+        List<LocalDateTime> open = engine.freeSlots(PROVIDER, day, day);
+        assertEquals(SlotEngine.SLOTS_PER_DAY, open.size());
+        assertTrue(open.contains(day.atTime(23, 30)));
+
+        assertTrue(engine.tryReserve(booking("a", day.plusDays(1).atTime(0, 0))));
+        assertFalse(engine.freeSlots(PROVIDER, day, day).contains(day.atTime(23, 30)));
+        assertTrue(engine.freeSlots(PROVIDER, day, day).contains(day.atTime(23, 0)));
+        assertFalse(engine.tryReserve(booking("b", day.atTime(23, 30))));
+        assertTrue(engine.tryReserve(booking("c", day.atTime(23, 0))));
+    }
+
+    @Test
+    void windowsCountOnlyWholeSlotsAndEndAtMidnightWhenTheyWrap() {
+        LocalDate monday = day.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        SlotEngine engine = engine(List.of(
+                window("Monday", LocalTime.of(9, 15), LocalTime.of(12, 0)),
+                window("MON", LocalTime.of(22, 0), LocalTime.MIDNIGHT)));
+
+        assertEquals(List.of(monday.atTime(9, 30), monday.atTime(10, 0), monday.atTime(10, 30),
+                        monday.atTime(11, 0), monday.atTime(22, 0), monday.atTime(22, 30), monday.atTime(23, 0)),
+                engine.freeSlots(PROVIDER, monday, monday.plusDays(1)));
+        // Tuesday is closed, so a booking that would spill into it does not fit
+        assertFalse(engine.tryReserve(booking("a", monday.atTime(23, 30))));
+        assertFalse(engine.tryReserve(booking("b", monday.atTime(9, 0))));
+        assertTrue(engine.tryReserve(booking("c", monday.atTime(9, 30))));
+    }
+
+    @Test
+    void releaseFreesOnlyThatBookingsSlots() {
+        SlotEngine engine = engine(List.of());
+        assertTrue(engine.tryReserve(booking("a", day.atTime(10, 0))));
+        assertTrue(engine.tryReserve(booking("b", day.atTime(11, 0))));
+
+        engine.release(PROVIDER, "a");
+        assertTrue(engine.tryReserve(booking("c", day.atTime(10, 0))));
+        assertFalse(engine.tryReserve(booking("d", day.atTime(11, 30))));
+    }
+
+    private static SlotEngine engine(List<Availability> windows) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(Availability.class))).thenReturn(windows);
+        return new SlotEngine(mongoTemplate, 60, 60000);
+    }
+
+    private static Availability window(String day, LocalTime start, LocalTime end) {
+        return new Availability(null, day, start, end);
+    }
+
+    private static Booking booking(String id, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setProviderId(PROVIDER);
+        booking.setBookingDate(Timestamp.valueOf(start));
+        return booking;
+    }
+
+    private static String slot(long epochDay, int index) {
+        return PROVIDER + ":" + epochDay + ":" + index;
+    }
+}
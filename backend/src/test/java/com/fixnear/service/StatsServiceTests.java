@@ -0,0 +1,96 @@
+package com.fixnear.service;
+
+import com.fixnear.model.StatsSnapshot;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * How {@link StatsService} treats local deltas around a rebuild, on this instance and on
+ * one whose baseline predates a rebuild made elsewhere, against a mocked MongoTemplate.
+ */
+class StatsServiceTests {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final AdminStatsService adminStatsService = mock(AdminStatsService.class);
+    private final StatsService statsService = new StatsService(mongoTemplate, adminStatsService);
+
+    @Test
+    void rebuildDropsDeltasItCountedAndKeepsThoseRecordedWhileAggregating() {
+        statsService.userCreated(true);
+        when(adminStatsService.providerTotals()).thenReturn(new AdminStatsService.ProviderTotals(0, 0, 0, Map.of()));
+        when(adminStatsService.bookingCountsByStatus()).thenReturn(Map.of());
+        when(adminStatsService.userTotals()).thenAnswer(invocation -> {
+            // A write that lands while the aggregations run
+            statsService.bookingCreated("PENDING");
+            return new AdminStatsService.UserTotals(5, 4);
+        });
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StatsSnapshot.class))).thenReturn(snapshot(1, 5));
+
+        statsService.rebuild();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(StatsSnapshot.class));
+        assertEquals(5L, ((Document) update.getValue().getUpdateObject().get("$set")).get("totalUsers"));
+        assertEquals(1L, ((Document) update.getValue().getUpdateObject().get("$inc")).get("generation"));
+        verify(mongoTemplate, never()).save(any());
+        assertEquals(5L, statsService.getAnalytics().get("totalUsers"));
+        assertEquals(1L, statsService.getAnalytics().get("totalBookings"));
+    }
+
+    @Test
+    void failedRebuildPutsTheHeldDeltasBack() {
+        when(mongoTemplate.findById(StatsSnapshot.GLOBAL_ID, StatsSnapshot.class)).thenReturn(snapshot(0, 5));
+        statsService.load();
+        statsService.userCreated(true);
+        when(adminStatsService.providerTotals()).thenThrow(new IllegalStateException("Mongo down"));
+
+        assertThrows(IllegalStateException.class, statsService::rebuild);
+        assertEquals(6L, statsService.getAnalytics().get("totalUsers"));
+    }
+
+    @Test
+    void flushAfterARebuildElsewhereDropsTheOlderDeltas() {
+        when(mongoTemplate.findById(StatsSnapshot.GLOBAL_ID, StatsSnapshot.class))
+                .thenReturn(snapshot(0, 5), snapshot(3, 9));
+        statsService.load();
+        statsService.userCreated(true);
+        // Our generation no longer matches, so the conditional $inc finds nothing
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StatsSnapshot.class))).thenReturn(null);
+
+        statsService.flush();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StatsSnapshot.class));
+        assertTrue(query.getValue().getQueryObject().toJson().contains("generation"));
+        assertEquals(9L, statsService.getAnalytics().get("totalUsers"));
+    }
+
+    private static StatsSnapshot snapshot(long generation, long totalUsers) {
+        StatsSnapshot snapshot = new StatsSnapshot();
+        snapshot.setGeneration(generation);
+        snapshot.setTotalUsers(totalUsers);
+        snapshot.setEnabledUsers(totalUsers);
+        return snapshot;
+    }
+}
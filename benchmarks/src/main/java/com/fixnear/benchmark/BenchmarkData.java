@@ -0,0 +1,77 @@
+package com.fixnear.benchmark;
+
+import com.fixnear.model.Booking;
+import com.fixnear.model.Provider;
+import com.fixnear.service.ProviderSearchIndex;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded fixtures shaped like production documents, so every suite and every run measures
+ * the same data.
+ */
+final class BenchmarkData {
+
+    static final String[] SERVICES = {"Plumbing", "Electrical", "Cleaning", "Carpentry", "Painting", "Gardening"};
+    static final String[] CITIES = {"New York", "Chicago", "Houston", "Phoenix", "Seattle", "Denver", "Boston"};
+    private static final String[] STATUSES = {"PENDING", "ACCEPTED", "COMPLETED", "CANCELLED", "REJECTED"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Provider> providers(int count) {
+        Random random = new Random(42);
+        List<Provider> providers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Provider provider = new Provider();
+            provider.setId(String.format("%024x", i));
+            provider.setUserId(String.format("%024x", 1_000_000 + i));
+            provider.setName("Provider " + i);
+            provider.setService(SERVICES[random.nextInt(SERVICES.length)]);
+            provider.setLocation(CITIES[random.nextInt(CITIES.length)]);
+            // What ProviderKeyListener stores on save
+            provider.setServiceKey(ProviderSearchIndex.normalize(provider.getService()));
+            provider.setLocationKey(ProviderSearchIndex.normalize(provider.getLocation()));
+            provider.setCoordinates(new GeoJsonPoint(-74 + random.nextDouble(), 40 + random.nextDouble()));
+            provider.setAvailable(random.nextBoolean());
+            provider.setWorkingHours("Mon-Fri 09:00-17:00");
+            provider.setRating(Math.round(random.nextDouble() * 50) / 10.0);
+            provider.setPrice(20 + random.nextInt(180));
+            provider.setVersion(random.nextInt(20));
+            provider.setUpdatedAt(new Date(1_700_000_000_000L + random.nextInt(1_000_000_000)));
+            providers.add(provider);
+        }
+        return providers;
+    }
+
+    static List<Booking> bookings(int count) {
+        Random random = new Random(7);
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Booking booking = new Booking();
+            booking.setId(String.format("%024x", 2_000_000 + i));
+            booking.setUserId(String.format("%024x", 1_000_000 + random.nextInt(5000)));
+            booking.setUserName("Customer " + random.nextInt(5000));
+            booking.setProviderId(String.format("%024x", random.nextInt(500)));
+            booking.setProviderName("Provider " + random.nextInt(500));
+            booking.setService(SERVICES[random.nextInt(SERVICES.length)]);
+            booking.setLocation(CITIES[random.nextInt(CITIES.length)]);
+            booking.setPrice(20 + random.nextInt(180));
+            booking.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            booking.setDescription("Fix the kitchen sink leak " + random.nextInt(100));
+            booking.setBookingDate(new Date(1_790_000_000_000L + random.nextInt(1_000_000_000)));
+            booking.setCreatedAt(new Date(1_780_000_000_000L + random.nextInt(1_000_000_000)));
+            booking.setUpdatedAt(booking.getCreatedAt());
+            if ("COMPLETED".equals(booking.getStatus())) {
+                booking.setRating(1 + random.nextInt(5));
+                booking.setReview("Great work");
+            }
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+}
@@ -0,0 +1,43 @@
+package com.fixnear.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: JMH's own command line, except that results are written as
+ * JSON to jmh-result.json unless -rf/-rff say otherwise. Keep one file per release and
+ * diff them with CompareResults.
+ *
+ * Build:   mvn -pl benchmarks -am package -DskipTests     (from the repository root)
+ * Run all: java -jar benchmarks/target/benchmarks.jar -rff results/0.0.1.json
+ * Run one: java -jar benchmarks/target/benchmarks.jar ProviderSearchBenchmark -p source=index
+ * Compare: java -cp benchmarks/target/benchmarks.jar com.fixnear.benchmark.CompareResults
+ *          results/0.0.1.json results/0.0.2.json [thresholdPercent]
+ */
+public final class BenchmarkMain {
+
+    static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
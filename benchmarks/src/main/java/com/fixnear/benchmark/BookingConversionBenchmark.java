@@ -0,0 +1,47 @@
+package com.fixnear.benchmark;
+
+import com.fixnear.dto.BookingMapper;
+import com.fixnear.dto.BookingResponse;
+import com.fixnear.model.Booking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingMapper.toResponse over a list the size of a booking page and of a
+ * provider's full history, as the list endpoints run it per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingConversionBenchmark {
+
+    @Param({"20", "2000"})
+    public int bookings;
+
+    private List<Booking> source;
+
+    @Setup
+    public void setUp() {
+        source = BenchmarkData.bookings(bookings);
+    }
+
+    @Benchmark
+    public List<BookingResponse> convertToResponse() {
+        return source.stream().map(BookingMapper::toResponse).toList();
+    }
+}
@@ -0,0 +1,85 @@
+package com.fixnear.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Lines up two JMH JSON result files by benchmark and parameters and prints the change in
+ * score. A benchmark regresses when it got slower by more than the threshold (default 10%)
+ * beyond the combined error bars of both runs; the exit status is 1 if any did, so a release
+ * build can fail on it.
+ *
+ * Usage: CompareResults baseline.json candidate.json [thresholdPercent]
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults baseline.json candidate.json [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> candidate = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "candidate", "change");
+        for (Map.Entry<String, Score> entry : candidate.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", after.value(), "new");
+                continue;
+            }
+            // Positive = worse, whichever direction the mode counts in
+            double worse = after.higherIsBetter()
+                    ? (before.value() - after.value()) / before.value()
+                    : (after.value() - before.value()) / before.value();
+            boolean beyondNoise = Math.abs(after.value() - before.value()) > before.error() + after.error();
+            boolean regressed = worse > threshold && beyondNoise;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.value(), after.value(),
+                    (after.value() - before.value()) / before.value() * 100, regressed ? "  REGRESSION" : "");
+        }
+        for (String removed : baseline.keySet()) {
+            if (!candidate.containsKey(removed)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", removed, baseline.get(removed).value(), "-", "gone");
+            }
+        }
+        System.out.printf("%d regression(s) above %.0f%%%n", regressions, threshold * 100);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            // Params in name order so the key does not depend on how JMH listed them
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asText()));
+            String benchmark = run.path("benchmark").asText();
+            String key = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1)
+                    + (params.isEmpty() ? "" : " " + params)
+                    + " [" + run.path("mode").asText() + ", " + run.path("primaryMetric").path("scoreUnit").asText() + "]";
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0);
+            scores.put(key, new Score(metric.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    run.path("mode").asText().equals("thrpt")));
+        }
+        return scores;
+    }
+
+    private record Score(double value, double error, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.fixnear.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fixnear.config.JacksonConfig;
+import com.fixnear.dto.BookingMapper;
+import com.fixnear.dto.BookingResponse;
+import com.fixnear.model.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the two list payloads the API returns most, provider search
+ * results and booking lists, with the mapper configured the way Spring Boot builds the
+ * application's (ISO dates, GeoJSON serializers from JacksonConfig).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "500"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Provider> providers;
+    private List<BookingResponse> bookings;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new JacksonConfig().geoJsonSerializers())
+                .build();
+        providers = BenchmarkData.providers(size);
+        bookings = BenchmarkData.bookings(size).stream().map(BookingMapper::toResponse).toList();
+    }
+
+    @Benchmark
+    public byte[] providers() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(providers);
+    }
+
+    @Benchmark
+    public byte[] bookingResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookings);
+    }
+}
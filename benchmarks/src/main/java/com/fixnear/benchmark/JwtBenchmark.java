@@ -0,0 +1,100 @@
+package com.fixnear.benchmark;
+
+import com.fixnear.model.User;
+import com.fixnear.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil's public operations as the login endpoint and JwtAuthenticationFilter call them,
+ * with the verified-token LRU off (every call parses and checks the signature) and on,
+ * against the previous JwtUtil (key and parser rebuilt per call, two parses per validation).
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar JwtBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    @Param({"0", "10000"})
+    public int verifiedCacheSize;
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3_600_000, verifiedCacheSize, new SimpleMeterRegistry());
+        user = new User();
+        user.setId("64b7f0c2a1b2c3d4e5f60718");
+        user.setEmail("bench@fixnear.com");
+        user.setRoles(List.of("USER"));
+        userDetails = org.springframework.security.core.userdetails.User
+                .withUsername(user.getEmail()).password("").roles("USER").build();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtUtil.isTokenValid(token, userDetails);
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public boolean previousIsTokenValid() {
+        // What isTokenValid used to cost whatever the cache size: subject and expiration
+        // each parsed separately, each with a freshly derived key and parser
+        String subject = legacyParse(token).getSubject();
+        Date expiry = legacyParse(token).getExpiration();
+        return subject.equals(userDetails.getUsername()) && !expiry.before(new Date());
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,111 @@
+package com.fixnear.benchmark;
+
+import com.fixnear.model.Provider;
+import com.fixnear.repository.ProviderRepository;
+import com.fixnear.service.ProviderSearchIndex;
+import com.fixnear.service.ProviderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProviderService.searchProviders with the search index warm ("index") and before it has
+ * loaded ("repository", the Mongo fallback path). Mongo is replaced by an in-memory
+ * ProviderRepository that filters a list the way the derived queries match, so the numbers
+ * cover the service's own work and not a database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderSearchBenchmark {
+
+    @Param({"1000", "20000"})
+    public int providers;
+
+    @Param({"index", "repository"})
+    public String source;
+
+    private ProviderService providerService;
+
+    @Setup
+    public void setUp() {
+        List<Provider> all = BenchmarkData.providers(providers);
+        ProviderRepository repository = inMemoryRepository(all);
+        ProviderSearchIndex searchIndex = new ProviderSearchIndex();
+        // Search paths never touch MongoTemplate or StatsService
+        providerService = new ProviderService(repository, searchIndex, null, null,
+                new ConcurrentMapCacheManager(), new SimpleMeterRegistry(), 0);
+        if (source.equals("index")) {
+            providerService.refreshSearchIndex();
+        }
+    }
+
+    @Benchmark
+    public List<Provider> serviceAndLocation() {
+        return providerService.searchProviders("Plumbing", "Chicago");
+    }
+
+    @Benchmark
+    public List<Provider> serviceOnly() {
+        return providerService.searchProviders(" plumbing ", null);
+    }
+
+    @Benchmark
+    public List<Provider> locationOnly() {
+        return providerService.searchProviders(null, "Seattle");
+    }
+
+    // Implements the finders searchProviders and refreshSearchIndex use; anything else fails loudly
+    private static ProviderRepository inMemoryRepository(List<Provider> providers) {
+        return (ProviderRepository) Proxy.newProxyInstance(ProviderRepository.class.getClassLoader(),
+                new Class<?>[] {ProviderRepository.class}, (proxy, method, args) -> {
+                    // Only the unpaged list finders; paged overloads return a Slice
+                    boolean listFinder = method.getReturnType() == List.class;
+                    return switch (method.getName()) {
+                        case "findAll" -> {
+                            if (args != null) {
+                                throw new UnsupportedOperationException(method.toString());
+                            }
+                            yield List.copyOf(providers);
+                        }
+                        case "findByServiceKey" -> listFinder ? providers.stream()
+                                .filter(p -> Objects.equals(p.getServiceKey(), args[0]))
+                                .toList() : unsupported(method);
+                        case "findByLocationKey" -> listFinder ? providers.stream()
+                                .filter(p -> Objects.equals(p.getLocationKey(), args[0]))
+                                .toList() : unsupported(method);
+                        case "findByServiceKeyAndLocationKey" -> listFinder ? providers.stream()
+                                .filter(p -> Objects.equals(p.getServiceKey(), args[0])
+                                        && Objects.equals(p.getLocationKey(), args[1]))
+                                .toList() : unsupported(method);
+                        case "toString" -> "InMemoryProviderRepository";
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> unsupported(method);
+                    };
+                });
+    }
+
+    private static Object unsupported(Method method) {
+        throw new UnsupportedOperationException(method.toString());
+    }
+}
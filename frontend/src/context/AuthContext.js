@@ -36,7 +36,7 @@ export const AuthProvider = ({ children }) => {
 
       try {
         // Ping a protected endpoint to validate token and backend availability
-        const resp = await fetch(`${config.API_BASE}/api/bookings?userId=${user.userId}`, {
+        const resp = await fetch(`${config.API_BASE}/api/bookings?userId=${user.userId}&limit=1`, {
           method: "GET",
           headers: {
             "Content-Type": "application/json",
@@ -1,10 +1,7 @@
-import config from "../config";
+import apiService from "./apiService";
 
 const api = {
-  getProviders: async () => {
-    const response = await fetch(`${config.API_BASE}/providers`);
-    return response.json();
-  }
+  getProviders: () => apiService.getAllProviders()
 };
 
 export default api;
@@ -1,5 +1,8 @@
 import config from "../config";
 
+// Page size for list endpoints; the backend caps limit at 100
+const PAGE_LIMIT = 100;
+
 class ApiService {
   constructor() {
     this.baseURL = config.API_BASE;
@@ -47,6 +50,22 @@ class ApiService {
     }
   }
 
+  // Follows a keyset-paged list endpoint (limit/after) to the end and returns its items
+  // as one array; an error body is returned as is for the caller to handle
+  async requestAll(endpoint) {
+    const separator = endpoint.includes("?") ? "&" : "?";
+    const items = [];
+    let after = null;
+    do {
+      const cursor = after ? `&after=${encodeURIComponent(after)}` : "";
+      const page = await this.request(`${endpoint}${separator}limit=${PAGE_LIMIT}${cursor}`);
+      if (!page || !Array.isArray(page.items)) return page;
+      items.push(...page.items);
+      after = page.nextCursor;
+    } while (after);
+    return items;
+  }
+
   // Auth endpoints
   login(email, password) {
     return this.request("/api/auth/login", {
@@ -64,7 +83,7 @@ class ApiService {
 
   // Provider endpoints
   getAllProviders() {
-    return this.request("/providers");
+    return this.requestAll("/providers");
   }
 
   getProviderByUser(userId) {
@@ -72,14 +91,14 @@ class ApiService {
   }
 
   getProvidersByService(service) {
-    return this.request(`/providers?service=${service}`);
+    return this.requestAll(`/providers?service=${encodeURIComponent(service)}`);
   }
 
   searchProviders(service, location) {
     const params = new URLSearchParams();
     if (service) params.append("service", service);
     if (location) params.append("location", location);
-    return this.request(`/providers?${params.toString()}`);
+    return this.requestAll(`/providers?${params.toString()}`);
   }
 
   addProvider(providerData) {
@@ -102,7 +121,7 @@ class ApiService {
   }
 
   getUserBookings(userId) {
-    return this.request(`/api/bookings?userId=${userId}`);
+    return this.requestAll(`/api/bookings?userId=${userId}`);
   }
 
   cancelBooking(id) {
@@ -112,7 +131,7 @@ class ApiService {
   }
 
   getProviderBookings(providerId) {
-    return this.request(`/api/bookings?providerId=${providerId}`);
+    return this.requestAll(`/api/bookings?providerId=${providerId}`);
   }
 
   updateBookingStatus(bookingId, status, reason = "") {
@@ -135,7 +154,7 @@ class ApiService {
   }
 
   getAllUsers() {
-    return this.request("/api/admin/users");
+    return this.requestAll("/api/admin/users");
   }
 
   deleteUser(id) {
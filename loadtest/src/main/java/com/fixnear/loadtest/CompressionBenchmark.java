@@ -0,0 +1,221 @@
+package com.fixnear.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fixnear.controller.PrecompressedResponseCache;
+import com.fixnear.dto.BookingResponse;
+import com.fixnear.model.Provider;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.data.mongodb.core.geo.GeoJsonModule;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bytes on the wire and latency for the two largest JSON payloads, the provider catalog
+ * (/providers) and the admin booking list (/api/admin/bookings), under the modes the server
+ * config can run in: HTTP/1.1 uncompressed, and HTTP/1.1 and h2c with Tomcat's on-the-fly
+ * gzip (serializing per request, as the controllers do on a cache miss). The catalog also
+ * runs h2c through PrecompressedResponseCache, the only route that serves cached bodies;
+ * the admin booking list is never precompressed, so it has no such row.
+ * Bytes are response body bytes as received, before any decoding.
+ *
+ * Build: mvn -pl loadtest -am package -DskipTests     (from the repository root)
+ * Run:   java -cp loadtest/target/loadtest.jar -Dloader.main=com.fixnear.loadtest.CompressionBenchmark
+ *        org.springframework.boot.loader.launch.PropertiesLauncher [providers bookings concurrency requestsPerClient]
+ */
+public class CompressionBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(GeoJsonModule.serializers());
+
+    private static final String[] SERVICES = {"Plumbing", "Electrical", "Cleaning", "Carpentry", "Painting", "Gardening"};
+    private static final String[] CITIES = {"New York", "Chicago", "Houston", "Phoenix", "Seattle", "Denver", "Boston"};
+    private static final String[] STATUSES = {"PENDING", "ACCEPTED", "COMPLETED", "CANCELLED", "REJECTED"};
+
+    public static void main(String[] args) throws Exception {
+        int providerCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int bookingCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int requestsPerClient = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        Random random = new Random(42);
+        List<Provider> providers = providers(random, providerCount);
+        List<BookingResponse> bookings = bookings(random, bookingCount);
+        PrecompressedResponseCache responseCache = new PrecompressedResponseCache(MAPPER, new SimpleMeterRegistry(),
+                DataSize.ofKilobytes(1), DataSize.ofMegabytes(16));
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        // Same policy as server.compression.* in application.properties; h2c streams inherit it
+        connector.setProperty("compression", "on");
+        connector.setProperty("compressibleMimeType", "application/json,text/csv,text/plain");
+        connector.setProperty("compressionMinSize", "1024");
+        connector.addUpgradeProtocol(new Http2Protocol());
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "providers", serializing(providers));
+        Tomcat.addServlet(context, "bookings", serializing(bookings));
+        Tomcat.addServlet(context, "providersPrecompressed", precompressed(responseCache, providers));
+        context.addServletMappingDecoded("/providers", "providers");
+        context.addServletMappingDecoded("/api/admin/bookings", "bookings");
+        context.addServletMappingDecoded("/precompressed/providers", "providersPrecompressed");
+        tomcat.start();
+
+        String base = "http://localhost:" + connector.getLocalPort();
+        System.out.printf("%d providers, %d bookings; %d clients x %d requests per mode%n",
+                providerCount, bookingCount, concurrency, requestsPerClient);
+        System.out.printf("%-20s %-22s %10s %9s %9s %9s%n", "payload", "mode", "bytes", "p50 ms", "p95 ms", "p99 ms");
+        try {
+            for (String path : new String[] {"/providers", "/api/admin/bookings"}) {
+                run(path, "http/1.1 identity", HttpClient.Version.HTTP_1_1, base + path, false, concurrency, requestsPerClient);
+                run(path, "http/1.1 gzip", HttpClient.Version.HTTP_1_1, base + path, true, concurrency, requestsPerClient);
+                run(path, "h2c gzip", HttpClient.Version.HTTP_2, base + path, true, concurrency, requestsPerClient);
+            }
+            run("/providers", "h2c precompressed", HttpClient.Version.HTTP_2, base + "/precompressed/providers", true,
+                    concurrency, requestsPerClient);
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private static void run(String payload, String mode, HttpClient.Version version, String url, boolean gzip,
+                            int concurrency, int requestsPerClient) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        HttpRequest request = builder.build();
+        try (ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+             HttpClient http = HttpClient.newBuilder().version(version).build()) {
+            // Warm up the JIT and, for h2c, complete the upgrade before timing
+            load(http, clients, request, concurrency, 20);
+            long[][] results = load(http, clients, request, concurrency, requestsPerClient);
+            long[] latencies = results[0];
+            Arrays.sort(latencies);
+            System.out.printf("%-20s %-22s %10d %9.2f %9.2f %9.2f%n", payload, mode, results[1][0],
+                    percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99));
+        }
+    }
+
+    // Returns {latencies in ns}, {body bytes of the last response}
+    private static long[][] load(HttpClient http, ExecutorService clients, HttpRequest request,
+                                 int concurrency, int requestsPerClient) throws Exception {
+        List<Future<long[]>> results = new ArrayList<>();
+        long[] bytes = new long[1];
+        for (int c = 0; c < concurrency; c++) {
+            results.add(clients.submit(() -> {
+                long[] timings = new long[requestsPerClient];
+                for (int i = 0; i < requestsPerClient; i++) {
+                    long sent = System.nanoTime();
+                    HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    timings[i] = System.nanoTime() - sent;
+                    bytes[0] = response.body().length;
+                }
+                return timings;
+            }));
+        }
+        long[] all = new long[concurrency * requestsPerClient];
+        int offset = 0;
+        for (Future<long[]> result : results) {
+            long[] timings = result.get();
+            System.arraycopy(timings, 0, all, offset, timings.length);
+            offset += timings.length;
+        }
+        return new long[][] {all, bytes};
+    }
+
+    private static HttpServlet serializing(Object body) {
+        return new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.setContentType("application/json");
+                MAPPER.writeValue(response.getOutputStream(), body);
+            }
+        };
+    }
+
+    // Answers the way ProviderQueryController does: one ETag for the unchanged list, body from the cache
+    private static HttpServlet precompressed(PrecompressedResponseCache responseCache, Object body) {
+        return new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                ResponseEntity<byte[]> entity = responseCache.respond("\"catalog\"", body,
+                        request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+                entity.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+                response.setContentLength(entity.getBody().length);
+                response.getOutputStream().write(entity.getBody());
+            }
+        };
+    }
+
+    private static List<Provider> providers(Random random, int count) {
+        List<Provider> providers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Provider provider = new Provider();
+            provider.setId(String.format("%024x", i));
+            provider.setUserId(String.format("%024x", 1_000_000 + i));
+            provider.setName("Provider " + i);
+            provider.setService(SERVICES[random.nextInt(SERVICES.length)]);
+            provider.setLocation(CITIES[random.nextInt(CITIES.length)]);
+            provider.setCoordinates(new GeoJsonPoint(-74 + random.nextDouble(), 40 + random.nextDouble()));
+            provider.setAvailable(random.nextBoolean());
+            provider.setWorkingHours("Mon-Fri 09:00-17:00");
+            provider.setRating(Math.round(random.nextDouble() * 50) / 10.0);
+            provider.setPrice(20 + random.nextInt(180));
+            provider.setVersion(random.nextInt(20));
+            provider.setUpdatedAt(new Date(1_700_000_000_000L + random.nextInt(1_000_000_000)));
+            providers.add(provider);
+        }
+        return providers;
+    }
+
+    private static List<BookingResponse> bookings(Random random, int count) {
+        List<BookingResponse> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BookingResponse booking = new BookingResponse();
+            booking.setId(String.format("%024x", 2_000_000 + i));
+            booking.setUserId(String.format("%024x", 1_000_000 + random.nextInt(5000)));
+            booking.setUserName("Customer " + random.nextInt(5000));
+            booking.setProviderId(String.format("%024x", random.nextInt(500)));
+            booking.setProviderName("Provider " + random.nextInt(500));
+            booking.setService(SERVICES[random.nextInt(SERVICES.length)]);
+            booking.setLocation(CITIES[random.nextInt(CITIES.length)]);
+            booking.setBookingDate(new Date(1_790_000_000_000L + random.nextInt(1_000_000_000)));
+            booking.setDescription("Fix the kitchen sink leak " + random.nextInt(100));
+            booking.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            booking.setPrice(20 + random.nextInt(180));
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,128 @@
+package com.fixnear.loadtest;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Throughput and latency of an embedded Tomcat on its default platform pool (200 threads)
+ * against a virtual thread per request, the two modes spring.threads.virtual.enabled switches
+ * between. The servlet blocks for a fixed time per request to stand in for a Mongo round trip,
+ * so the comparison isolates how many requests each mode keeps in flight.
+ *
+ * Build: mvn -pl loadtest -am package -DskipTests     (from the repository root)
+ * Run:   java -cp loadtest/target/loadtest.jar -Dloader.main=com.fixnear.loadtest.ExecutionModeLoadTest
+ *        org.springframework.boot.loader.launch.PropertiesLauncher [concurrency requestsPerClient blockingMs]
+ */
+public class ExecutionModeLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long blockingMs = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+        System.out.printf("%d concurrent clients x %d requests, %d ms blocking per request%n",
+                concurrency, requestsPerClient, blockingMs);
+        for (boolean virtual : new boolean[] {false, true}) {
+            run(virtual, concurrency, requestsPerClient, blockingMs);
+        }
+    }
+
+    private static void run(boolean virtual, int concurrency, int requestsPerClient, long blockingMs)
+            throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        // Match the accept backlog to the load so neither mode loses connections at the socket
+        connector.setProperty("acceptCount", String.valueOf(concurrency));
+        connector.setProperty("maxConnections", String.valueOf(concurrency * 2));
+        if (virtual) {
+            ((AbstractProtocol<?>) connector.getProtocolHandler())
+                    .setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "blocking", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try {
+                    Thread.sleep(blockingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setContentType("application/json");
+                response.getWriter().write("{\"ok\":true}");
+            }
+        });
+        context.addServletMappingDecoded("/providers", "blocking");
+        tomcat.start();
+
+        URI uri = URI.create("http://localhost:" + connector.getLocalPort() + "/providers");
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+            // Warm up connections and JIT
+            load(http, clients, uri, Math.min(concurrency, 200), 5);
+
+            long start = System.nanoTime();
+            long[] latencies = load(http, clients, uri, concurrency, requestsPerClient);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.printf("%-9s %8.0f req/s  p50 %6.1f ms  p95 %6.1f ms  p99 %6.1f ms%n",
+                    virtual ? "virtual" : "platform",
+                    latencies.length / seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99));
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private static long[] load(HttpClient http, ExecutorService clients, URI uri,
+                               int concurrency, int requestsPerClient) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            results.add(clients.submit(() -> {
+                long[] timings = new long[requestsPerClient];
+                for (int i = 0; i < requestsPerClient; i++) {
+                    long sent = System.nanoTime();
+                    http.send(request, HttpResponse.BodyHandlers.discarding());
+                    timings[i] = System.nanoTime() - sent;
+                }
+                return timings;
+            }));
+        }
+        long[] all = new long[concurrency * requestsPerClient];
+        int offset = 0;
+        for (Future<long[]> result : results) {
+            long[] timings = result.get();
+            System.arraycopy(timings, 0, all, offset, timings.length);
+            offset += timings.length;
+        }
+        return all;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
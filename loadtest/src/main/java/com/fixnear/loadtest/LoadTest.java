@@ -0,0 +1,150 @@
+package com.fixnear.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fixnear.FixNearApplication;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test of one backend instance: seeds a dataset, boots the application
+ * in this JVM against it, drives the request mix over HTTP and reports throughput and
+ * p50/p95/p99 per endpoint, on the console and as JSON.
+ *
+ * Mongo is an in-process wire-protocol server on loopback by default (mongo-java-server,
+ * in memory), which needs nothing installed and measures the application's own cost. It
+ * scans instead of using secondary indexes and is not a performance model of mongod; for
+ * capacity numbers point mongo-uri= at a local mongod. Load generator and application
+ * share the machine, so give the run the cores a pod would get (e.g. taskset or a
+ * container CPU limit) and leave some to the generator.
+ *
+ * Build: mvn -pl loadtest -am package -DskipTests     (from the repository root)
+ * Run:   java -jar loadtest/target/loadtest.jar users=5000 providers=500 bookings=50000 clients=64
+ *
+ * See {@link Settings} for every option. Backend settings read from the environment
+ * (VIRTUAL_THREADS, HTTP2_ENABLED, ...) apply as when the backend runs on its own.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.parse(args);
+
+        MongoServer mongoServer = null;
+        String mongoUri = settings.mongoUri();
+        if (mongoUri == null) {
+            mongoServer = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = mongoServer.bind(); // a free port on localhost
+            mongoUri = "mongodb://127.0.0.1:" + address.getPort() + "/" + Settings.DEFAULT_DATABASE;
+            System.out.println("Mongo: in-process stand-in on " + address + " (no secondary indexes, no explain)");
+        } else {
+            System.out.println("Mongo: " + mongoUri);
+        }
+        String database = new ConnectionString(mongoUri).getDatabase();
+        if (database == null || !database.endsWith("loadtest")) {
+            throw new IllegalArgumentException("mongo-uri must name a database ending in \"loadtest\"; it is dropped");
+        }
+
+        ConfigurableApplicationContext app = null;
+        try {
+            Seeder.Dataset dataset;
+            long seeding = System.nanoTime();
+            try (MongoClient client = MongoClients.create(mongoUri)) {
+                MongoTemplate mongoTemplate = new MongoTemplate(client, database);
+                mongoTemplate.getDb().drop();
+                dataset = Seeder.seed(mongoTemplate, settings);
+            }
+            System.out.printf("Seeded %d users, %d providers, %d bookings in %.1f s%n", settings.users(),
+                    settings.providers(), settings.bookings(), (System.nanoTime() - seeding) / 1e9);
+
+            // Command-line arguments outrank application.properties and the environment
+            byte[] secret = new byte[48];
+            new SecureRandom().nextBytes(secret);
+            List<String> properties = new ArrayList<>(List.of(
+                    "--spring.data.mongodb.uri=" + mongoUri,
+                    "--server.port=0",
+                    "--management.server.port=0",
+                    "--jwt.secret=" + HexFormat.of().formatHex(secret),
+                    "--jwt.expiration=3600000",
+                    "--spring.main.banner-mode=off",
+                    "--logging.level.root=WARN"));
+            if (mongoServer != null) {
+                // The stand-in ignores secondary indexes and has no explain; say so once here, not per call
+                properties.add("--logging.level.de.bwaldvogel=OFF");
+                properties.add("--fixnear.mongo.slow-queries.explain=false");
+            }
+            app = new SpringApplicationBuilder(FixNearApplication.class).run(properties.toArray(String[]::new));
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            System.out.printf("Backend on port %d; %d clients, %s, %s warmup + %s measured%n", port,
+                    settings.clients(), settings.rate() > 0 ? settings.rate() + " req/s" : "closed loop",
+                    settings.warmup(), settings.duration());
+
+            Results results = new Results();
+            new Workload("http://127.0.0.1:" + port, settings, dataset, results).run();
+            Map<String, Results.Summary> summaries = results.summarize(settings.mix().keySet());
+            print(summaries);
+            write(settings, summaries);
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+            if (mongoServer != null) {
+                mongoServer.shutdownNow();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void print(Map<String, Results.Summary> summaries) {
+        System.out.printf("%n%-10s %-34s %9s %9s %7s %7s %7s %9s %9s %9s %9s%n", "operation", "endpoint",
+                "requests", "req/s", "409", "503", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        summaries.forEach((operation, s) -> System.out.printf(
+                "%-10s %-34s %9d %9.1f %7d %7d %7d %9.2f %9.2f %9.2f %9.2f%n", operation, s.endpoint(),
+                s.requests(), s.perSecond(), s.conflicts(), s.overloaded(), s.failed(),
+                s.p50Ms(), s.p95Ms(), s.p99Ms(), s.maxMs()));
+        Results.Summary created = summaries.get(Operation.CREATE.key());
+        if (created != null && created.requests() > 0) {
+            System.out.printf("%nBookings created: %.1f/s%n", created.perSecond() * created.ok() / created.requests());
+        }
+    }
+
+    private static void write(Settings settings, Map<String, Results.Summary> summaries) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("users", settings.users());
+        run.put("providers", settings.providers());
+        run.put("bookings", settings.bookings());
+        run.put("clients", settings.clients());
+        run.put("rate", settings.rate());
+        run.put("warmupSeconds", settings.warmup().toSeconds());
+        run.put("durationSeconds", settings.duration().toSeconds());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        settings.mix().forEach((operation, weight) -> mix.put(operation.key(), weight));
+        run.put("mix", mix);
+        run.put("mongo", settings.mongoUri() == null ? "in-process" : "mongod");
+        run.put("cpus", Runtime.getRuntime().availableProcessors());
+        report.put("settings", run);
+        report.put("results", summaries);
+        File out = new File(settings.out());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out, report);
+        System.out.println("Report written to " + out.getAbsolutePath());
+    }
+}
@@ -0,0 +1,40 @@
+package com.fixnear.loadtest;
+
+/**
+ * The requests a virtual user chooses between, each named after what a real client does
+ * and labelled with the endpoint it exercises.
+ */
+enum Operation {
+
+    LOGIN("login", "POST /api/auth/login"),
+    SEARCH("search", "GET /providers?service&location"),
+    CREATE("create", "POST /api/bookings"),
+    STATUS("status", "PUT /api/bookings/{id}/status"),
+    DASHBOARD("dashboard", "GET /api/bookings/provider/{id}"),
+    ADMIN("admin", "GET /api/admin/dashboard");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    static Operation named(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + key + "' in mix");
+    }
+}
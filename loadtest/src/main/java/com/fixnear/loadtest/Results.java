@@ -0,0 +1,107 @@
+package com.fixnear.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counts per operation. Everything recorded before
+ * {@link #startMeasuring()} is warmup and dropped.
+ */
+final class Results {
+
+    private static final long MAX_LATENCY_US = TimeUnit.MINUTES.toMicros(2);
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private volatile long measuringSince;
+
+    Results() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void record(Operation operation, int status, long latencyNanos) {
+        Stats stat = stats.get(operation);
+        stat.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_US));
+        if (status / 100 == 2 || status == 304) {
+            stat.ok.increment();
+        } else if (status == 409) {
+            stat.conflicts.increment(); // slot already taken: a correct answer, not an error
+        } else if (status == 503) {
+            stat.overloaded.increment();
+        } else {
+            stat.failed.increment();
+        }
+    }
+
+    // No response at all (connection refused, timeout)
+    void recordError(Operation operation) {
+        stats.get(operation).failed.increment();
+    }
+
+    void startMeasuring() {
+        for (Stats stat : stats.values()) {
+            stat.latency.getIntervalHistogram();
+            stat.ok.reset();
+            stat.conflicts.reset();
+            stat.overloaded.reset();
+            stat.failed.reset();
+        }
+        measuringSince = System.nanoTime();
+    }
+
+    /** Per-operation summary of the measured window, in mix order, plus a TOTAL row. */
+    Map<String, Summary> summarize(Iterable<Operation> operations) {
+        double seconds = (System.nanoTime() - measuringSince) / 1e9;
+        Map<String, Summary> summaries = new LinkedHashMap<>();
+        Histogram total = new Histogram(MAX_LATENCY_US, 3);
+        long ok = 0;
+        long conflicts = 0;
+        long overloaded = 0;
+        long failed = 0;
+        for (Operation operation : operations) {
+            Stats stat = stats.get(operation);
+            Histogram histogram = stat.latency.getIntervalHistogram();
+            total.add(histogram);
+            Summary summary = Summary.of(operation.endpoint(), histogram, seconds, stat.ok.sum(),
+                    stat.conflicts.sum(), stat.overloaded.sum(), stat.failed.sum());
+            ok += summary.ok();
+            conflicts += summary.conflicts();
+            overloaded += summary.overloaded();
+            failed += summary.failed();
+            summaries.put(operation.key(), summary);
+        }
+        summaries.put("TOTAL", Summary.of("all requests", total, seconds, ok, conflicts, overloaded, failed));
+        return summaries;
+    }
+
+    record Summary(String endpoint, long requests, double perSecond, long ok, long conflicts, long overloaded,
+                   long failed, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+
+        static Summary of(String endpoint, Histogram histogram, double seconds,
+                          long ok, long conflicts, long overloaded, long failed) {
+            long requests = ok + conflicts + overloaded + failed;
+            return new Summary(endpoint, requests, requests / seconds, ok, conflicts, overloaded, failed,
+                    millis(histogram, 50), millis(histogram, 95), millis(histogram, 99),
+                    histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1000.0);
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    private static final class Stats {
+        final Recorder latency = new Recorder(MAX_LATENCY_US, 3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder overloaded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+}
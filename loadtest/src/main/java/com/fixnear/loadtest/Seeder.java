@@ -0,0 +1,156 @@
+package com.fixnear.loadtest;
+
+import com.fixnear.model.Booking;
+import com.fixnear.model.Provider;
+import com.fixnear.model.User;
+import com.fixnear.service.ProviderSearchIndex;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a synthetic dataset in the shape insert_data.js started: the same services and
+ * cities, scaled up, plus the customer and provider accounts and the booking history the
+ * workload needs. Everything derives from a fixed seed, so runs at the same scale see the
+ * same data.
+ */
+final class Seeder {
+
+    static final String PASSWORD = "loadtest-password";
+    static final String ADMIN_EMAIL = "admin@loadtest.fixnear";
+
+    // insert_data.js's services and cities, plus a few more cities to spread the catalog
+    static final String[] SERVICES = {"Plumbing", "Electrical", "Mechanic", "Painting", "HVAC",
+            "General Repair", "Roofing", "Security"};
+    static final String[] CITIES = {"New York", "Boston", "Chicago", "Houston", "Phoenix", "Seattle",
+            "Denver", "Austin"};
+    // Rough city centres, so nearby search and the geo index see realistic points
+    private static final double[][] CITY_COORDINATES = {{-74.006, 40.713}, {-71.059, 42.360}, {-87.630, 41.878},
+            {-95.370, 29.760}, {-112.074, 33.448}, {-122.332, 47.606}, {-104.990, 39.739}, {-97.743, 30.267}};
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Mike", "Sarah", "Robert", "Emily", "David",
+            "Lisa", "James", "Patricia"};
+    private static final String[] LAST_NAMES = {"Smith", "Doe", "Johnson", "Williams", "Brown", "Davis",
+            "Wilson", "Anderson", "Martinez", "Taylor"};
+    private static final String[] STATUSES = {"PENDING", "ACCEPTED", "COMPLETED", "CANCELLED", "REJECTED"};
+    private static final int BATCH = 1000;
+
+    private Seeder() {
+    }
+
+    /** What the workload needs to address the seeded documents. */
+    record Dataset(List<String> customerIds, List<String> customerEmails, List<String> providerIds,
+                   List<String> bookingIds) {
+    }
+
+    static Dataset seed(MongoTemplate mongoTemplate, Settings settings) {
+        Random random = new Random(42);
+        // One hash for every account; the library default cost, which the backend upgrades on first login if it runs higher
+        String password = new BCryptPasswordEncoder(10).encode(PASSWORD);
+        Date now = new Date();
+
+        List<User> users = new ArrayList<>(settings.users() + settings.providers() + 1);
+        List<String> customerIds = new ArrayList<>(settings.users());
+        List<String> customerEmails = new ArrayList<>(settings.users());
+        for (int i = 0; i < settings.users(); i++) {
+            User user = user("customer" + i + "@loadtest.fixnear", name(random), password, "USER");
+            customerIds.add(user.getId());
+            customerEmails.add(user.getEmail());
+            users.add(user);
+        }
+        users.add(user(ADMIN_EMAIL, "Load Test Admin", password, "ADMIN"));
+
+        List<Provider> providers = new ArrayList<>(settings.providers());
+        for (int i = 0; i < settings.providers(); i++) {
+            User account = user("provider" + i + "@loadtest.fixnear", name(random), password, "PROVIDER");
+            users.add(account);
+            int city = random.nextInt(CITIES.length);
+            Provider provider = new Provider();
+            provider.setId(new ObjectId().toHexString());
+            provider.setUserId(account.getId());
+            provider.setName(account.getName());
+            provider.setService(SERVICES[random.nextInt(SERVICES.length)]);
+            provider.setLocation(CITIES[city]);
+            provider.setServiceKey(ProviderSearchIndex.normalize(provider.getService()));
+            provider.setLocationKey(ProviderSearchIndex.normalize(provider.getLocation()));
+            provider.setCoordinates(new GeoJsonPoint(
+                    CITY_COORDINATES[city][0] + (random.nextDouble() - 0.5) * 0.4,
+                    CITY_COORDINATES[city][1] + (random.nextDouble() - 0.5) * 0.4));
+            provider.setAvailable(random.nextInt(10) < 8);
+            provider.setWorkingHours("Mon-Fri 09:00-17:00");
+            provider.setRating(Math.round((3.5 + random.nextDouble() * 1.5) * 10) / 10.0);
+            provider.setPrice(40 + random.nextInt(11) * 5);
+            provider.setUpdatedAt(now);
+            providers.add(provider);
+        }
+
+        List<Booking> bookings = new ArrayList<>(settings.bookings());
+        List<String> bookingIds = new ArrayList<>(settings.bookings());
+        for (int i = 0; i < settings.bookings(); i++) {
+            int customer = random.nextInt(settings.users());
+            Provider provider = providers.get(random.nextInt(providers.size()));
+            Booking booking = new Booking();
+            booking.setId(new ObjectId().toHexString());
+            booking.setUserId(customerIds.get(customer));
+            booking.setUserName(users.get(customer).getName());
+            booking.setProviderId(provider.getId());
+            booking.setProviderName(provider.getName());
+            booking.setService(provider.getService());
+            booking.setLocation(provider.getLocation());
+            booking.setPrice(provider.getPrice());
+            // Mostly history; the rest spread over the coming months
+            boolean past = random.nextInt(10) < 7;
+            long offsetHours = 1 + random.nextInt(past ? 24 * 365 : 24 * 180);
+            booking.setBookingDate(hour(now.getTime() + (past ? -1 : 1) * TimeUnit.HOURS.toMillis(offsetHours)));
+            booking.setStatus(past ? STATUSES[2 + random.nextInt(3)] : STATUSES[random.nextInt(2)]);
+            if ("COMPLETED".equals(booking.getStatus())) {
+                booking.setRating(3 + random.nextInt(3));
+                booking.setReview("Good job");
+            }
+            booking.setDescription("Synthetic booking " + i);
+            booking.setCreatedAt(new Date(booking.getBookingDate().getTime() - TimeUnit.DAYS.toMillis(3)));
+            booking.setUpdatedAt(booking.getCreatedAt());
+            bookingIds.add(booking.getId());
+            bookings.add(booking);
+        }
+
+        insert(mongoTemplate, User.class, users);
+        insert(mongoTemplate, Provider.class, providers);
+        insert(mongoTemplate, Booking.class, bookings);
+        return new Dataset(customerIds, customerEmails, providers.stream().map(Provider::getId).toList(), bookingIds);
+    }
+
+    private static <T> void insert(MongoTemplate mongoTemplate, Class<T> type, List<T> documents) {
+        for (int from = 0; from < documents.size(); from += BATCH) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type)
+                    .insert(documents.subList(from, Math.min(from + BATCH, documents.size())))
+                    .execute();
+        }
+    }
+
+    private static User user(String email, String name, String password, String role) {
+        User user = new User();
+        user.setId(new ObjectId().toHexString());
+        user.setEmail(email);
+        user.setName(name);
+        user.setPassword(password);
+        user.setRoles(List.of(role));
+        return user;
+    }
+
+    private static String name(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    // Bookings hold whole-hour slots
+    static Date hour(long millis) {
+        return new Date(millis - Math.floorMod(millis, TimeUnit.HOURS.toMillis(1)));
+    }
+}
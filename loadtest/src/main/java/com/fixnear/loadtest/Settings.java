@@ -0,0 +1,86 @@
+package com.fixnear.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Run parameters, given on the command line as key=value pairs:
+ *
+ *   users=2000 providers=300 bookings=20000   dataset size (seeded before the run)
+ *   clients=32                                concurrent virtual users
+ *   rate=0                                    total requests/s; 0 = each client sends as fast as it can
+ *   warmup=20s duration=60s                   samples during warmup are discarded
+ *   mix=login:5,search:45,create:15,status:15,dashboard:15,admin:5
+ *   mongo-uri=mongodb://localhost:27017/fixnear_loadtest
+ *                                             a local mongod instead of the in-process stand-in; the
+ *                                             database is dropped and reseeded, so its name must end
+ *                                             in "loadtest"
+ *   out=loadtest-result.json
+ */
+record Settings(int users, int providers, int bookings, int clients, double rate,
+                Duration warmup, Duration duration, Map<Operation, Integer> mix,
+                String mongoUri, String out) {
+
+    static final String DEFAULT_DATABASE = "fixnear_loadtest";
+
+    static Settings parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            values.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        Settings settings = new Settings(
+                Integer.parseInt(values.getOrDefault("users", "2000")),
+                Integer.parseInt(values.getOrDefault("providers", "300")),
+                Integer.parseInt(values.getOrDefault("bookings", "20000")),
+                Integer.parseInt(values.getOrDefault("clients", "32")),
+                Double.parseDouble(values.getOrDefault("rate", "0")),
+                duration(values.getOrDefault("warmup", "20s")),
+                duration(values.getOrDefault("duration", "60s")),
+                mix(values.getOrDefault("mix", "login:5,search:45,create:15,status:15,dashboard:15,admin:5")),
+                values.get("mongo-uri"),
+                values.getOrDefault("out", "loadtest-result.json"));
+        values.keySet().removeAll(List.of("users", "providers", "bookings", "clients", "rate",
+                "warmup", "duration", "mix", "mongo-uri", "out"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown settings: " + values.keySet());
+        }
+        if (settings.users < 1 || settings.providers < 1 || settings.clients < 1) {
+            throw new IllegalArgumentException("users, providers and clients must be at least 1");
+        }
+        return settings;
+    }
+
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value.endsWith("s") ? value.substring(0, value.length() - 1) : value));
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in mix, got: " + part);
+            }
+            int share = Integer.parseInt(weight[1].trim());
+            if (share > 0) {
+                mix.put(Operation.named(weight[0].trim()), share);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("mix has no operation with a positive weight");
+        }
+        return mix;
+    }
+}
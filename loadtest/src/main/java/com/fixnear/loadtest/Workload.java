@@ -0,0 +1,238 @@
+package com.fixnear.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Virtual users against the running backend. Each one logs in as its own seeded customer,
+ * then picks operations by the mix weights until the run ends. Without a rate every user
+ * sends its next request as soon as the last one returns (closed loop: throughput is what
+ * the server sustains). With a rate the users follow a fixed schedule and latency is
+ * measured from when each request was due, so a stalled server shows up as queueing delay
+ * instead of as fewer, faster requests.
+ */
+final class Workload {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final DateTimeFormatter BOOKING_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:00:00");
+    private static final String[] STATUS_CHANGES = {"ACCEPTED", "COMPLETED", "CANCELLED"};
+
+    private final String baseUrl;
+    private final Settings settings;
+    private final Seeder.Dataset dataset;
+    private final Results results;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http;
+    private final Operation[] wheel;
+
+    // Bookings created during the run, so status updates also hit fresh documents
+    private final AtomicReferenceArray<String> created = new AtomicReferenceArray<>(4096);
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private String adminToken;
+
+    Workload(String baseUrl, Settings settings, Seeder.Dataset dataset, Results results) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.dataset = dataset;
+        this.results = results;
+        // HTTP/1.1 keep-alive, the way a browser or proxy in front of the pod connects
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        List<Operation> wheel = new ArrayList<>();
+        settings.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(operation);
+            }
+        });
+        this.wheel = wheel.toArray(Operation[]::new);
+    }
+
+    void run() throws Exception {
+        adminToken = loginWithRetry(Seeder.ADMIN_EMAIL);
+        long start = System.nanoTime();
+        long measureAt = start + settings.warmup().toNanos();
+        long end = measureAt + settings.duration().toNanos();
+        // Nanoseconds between two requests of one virtual user, when a rate is set
+        long intervalNanos = settings.rate() > 0 ? (long) (settings.clients() * 1e9 / settings.rate()) : 0;
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < settings.clients(); i++) {
+                String customerId = dataset.customerIds().get(i % dataset.customerIds().size());
+                String email = dataset.customerEmails().get(i % dataset.customerEmails().size());
+                // Spread scheduled users across one interval so they do not fire in lockstep
+                long offset = intervalNanos * i / settings.clients();
+                running.add(users.submit(() -> {
+                    virtualUser(customerId, email, start + offset, end, intervalNanos);
+                    return null;
+                }));
+            }
+            LockSupport.parkNanos(measureAt - System.nanoTime());
+            results.startMeasuring();
+            for (Future<?> user : running) {
+                user.get();
+            }
+        }
+    }
+
+    private void virtualUser(String customerId, String email, long firstAt, long end, long intervalNanos)
+            throws Exception {
+        String token = loginWithRetry(email);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long due = Math.max(firstAt, System.nanoTime());
+        while (true) {
+            if (intervalNanos > 0) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                due = System.nanoTime();
+            }
+            if (due >= end) {
+                return;
+            }
+            Operation operation = wheel[random.nextInt(wheel.length)];
+            try {
+                HttpResponse<byte[]> response = http.send(request(operation, customerId, token, random),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                results.record(operation, response.statusCode(), System.nanoTime() - due);
+                if (operation == Operation.CREATE && response.statusCode() == 200) {
+                    String id = objectMapper.readTree(response.body()).path("id").asText(null);
+                    if (id != null) {
+                        created.set((int) (createdCount.getAndIncrement() % created.length()), id);
+                    }
+                }
+            } catch (IOException e) {
+                results.recordError(operation);
+            }
+            due += intervalNanos;
+        }
+    }
+
+    private HttpRequest request(Operation operation, String customerId, String token, ThreadLocalRandom random)
+            throws IOException {
+        return switch (operation) {
+            case LOGIN -> post("/api/auth/login", null, Map.of(
+                    "email", pick(dataset.customerEmails(), random), "password", Seeder.PASSWORD));
+            case SEARCH -> {
+                String service = Seeder.SERVICES[random.nextInt(Seeder.SERVICES.length)];
+                String city = Seeder.CITIES[random.nextInt(Seeder.CITIES.length)];
+                // Half narrow searches, the rest by service or by city alone
+                int shape = random.nextInt(4);
+                String query = shape < 2 ? "service=" + encode(service) + "&location=" + encode(city)
+                        : shape == 2 ? "service=" + encode(service) : "location=" + encode(city);
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/providers?" + query))
+                        .timeout(TIMEOUT)
+                        .header("Accept-Encoding", "gzip")
+                        .GET()
+                        .build();
+            }
+            case CREATE -> {
+                // A whole hour within business hours over the next year; some collide, as real ones do
+                LocalDateTime date = LocalDateTime.now(ZoneOffset.UTC).toLocalDate()
+                        .plusDays(1 + random.nextInt(365))
+                        .atTime(8 + random.nextInt(10), 0);
+                yield post("/api/bookings", token, Map.of(
+                        "userId", customerId,
+                        "providerId", pick(dataset.providerIds(), random),
+                        "bookingDate", date.format(BOOKING_DATE),
+                        "description", "Load test booking"));
+            }
+            case STATUS -> {
+                String id = null;
+                long count = createdCount.get();
+                if (count > 0 && random.nextBoolean()) {
+                    id = created.get((int) (random.nextLong(Math.min(count, created.length()))));
+                }
+                if (id == null) {
+                    id = pick(dataset.bookingIds(), random);
+                }
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/api/bookings/" + id + "/status"))
+                        .timeout(TIMEOUT)
+                        .header("Authorization", "Bearer " + token)
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(
+                                Map.of("status", STATUS_CHANGES[random.nextInt(STATUS_CHANGES.length)]))))
+                        .build();
+            }
+            case DASHBOARD -> get("/api/bookings/provider/" + pick(dataset.providerIds(), random), token);
+            case ADMIN -> get("/api/admin/dashboard", adminToken);
+        };
+    }
+
+    // Logins that meet the hashing pool's admission limit back off and try again
+    private String loginWithRetry(String email) throws Exception {
+        long backoffMs = 100;
+        for (int attempt = 0; ; attempt++) {
+            HttpResponse<byte[]> response = http.send(
+                    post("/api/auth/login", null, Map.of("email", email, "password", Seeder.PASSWORD)),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200) {
+                JsonNode body = objectMapper.readTree(response.body());
+                return body.path("token").asText();
+            }
+            if (response.statusCode() != 503 || attempt >= 20) {
+                throw new IllegalStateException("Login of " + email + " failed with " + response.statusCode()
+                        + ": " + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            TimeUnit.MILLISECONDS.sleep(backoffMs + ThreadLocalRandom.current().nextLong(backoffMs));
+            backoffMs = Math.min(backoffMs * 2, 2000);
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + token)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String token, Map<String, String> body) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static String pick(List<String> values, ThreadLocalRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}